@@ -0,0 +1,113 @@
+package scripts.GameObject;
+
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.Map.MazeFixtures;
+import scripts.Other.Config;
+import scripts.Physics.World;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark {
+
+    /**
+     * Repetitions of the 290x290 maze per axis
+     */
+    @Param({"1", "4", "16"})
+    public int tiles;
+
+    /**
+     * Where the ball sits inside the first corridor of the maze
+     */
+    @Param({"OPEN", "WALL", "CORNER"})
+    public String scenario;
+
+    /**
+     * Test every segment instead of querying the segment grid
+     */
+    @Param({"false", "true"})
+    public boolean bruteForce;
+
+    /**
+     * Sweep to the earliest impact instead of the fixed sub-step loop
+     */
+    @Param({"false", "true"})
+    public boolean continuous;
+
+    /**
+     * World over the tiled maze
+     */
+    private World world;
+
+    /**
+     * Ball under test
+     */
+    private Circle circle;
+
+    /**
+     * Ball position of the scenario
+     */
+    private double x, y;
+
+    /**
+     * Build world and ball
+     */
+    @Setup
+    public void setUp() {
+        Config.bruteForceCollisions = bruteForce;
+        Config.continuousCollisions = continuous;
+        world = MazeFixtures.world(tiles);
+        circle = new Circle(0, 0, 7, Color.RED, 0, 0, 100.0, false);
+        world.addCircle(circle);
+
+        // First corridor spans x 210..236, its floor is at y 308
+        switch (scenario) {
+            case "OPEN":
+                x = 223;
+                y = 260;
+                break;
+            case "WALL":
+                x = 223;
+                y = 300.9;
+                break;
+            default:
+                x = 217.1;
+                y = 300.9;
+                break;
+        }
+    }
+
+    /**
+     * One collision pass of a ball moving down at 50 px/s
+     *
+     * @return resolved x position
+     */
+    @Benchmark
+    public double handleCollisions() {
+        circle.setState(x, y, 0, 50);
+        circle.handleCollisions(world);
+        return circle.getX() + circle.getY();
+    }
+
+    /**
+     * One full physics update of a ball moving down at 50 px/s
+     *
+     * @return resolved x position
+     */
+    @Benchmark
+    public double update() {
+        circle.setState(x, y, 0, 50);
+        circle.update(world, Config.FIXED_TIMESTEP);
+        return circle.getX() + circle.getY();
+    }
+}
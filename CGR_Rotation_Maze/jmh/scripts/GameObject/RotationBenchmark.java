@@ -0,0 +1,57 @@
+package scripts.GameObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.Map.MazeFixtures;
+import scripts.Physics.MazeTransform;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RotationBenchmark {
+
+    /**
+     * Repetitions of the 290x290 maze per axis
+     */
+    @Param({"1", "4", "16"})
+    public int tiles;
+
+    /**
+     * Maze geometry
+     */
+    private SegmentStore segments;
+
+    /**
+     * Rotation applied every frame with A or D held
+     */
+    private MazeTransform transform;
+
+    /**
+     * Extract the tiled maze once per trial
+     */
+    @Setup
+    public void setUp() {
+        segments = MazeFixtures.world(tiles).getSegments();
+        transform = new MazeTransform();
+    }
+
+    /**
+     * Rotate the whole maze by one frame step, as with A held
+     *
+     * @return first rotated coordinate
+     */
+    @Benchmark
+    public double rotateMaze() {
+        transform.rotate(0.01);
+        segments.update(transform);
+        return segments.sx[0];
+    }
+}
@@ -0,0 +1,66 @@
+package scripts.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.Controller.InputSnapshot;
+import scripts.Other.Config;
+import scripts.Physics.World;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratedMazeBenchmark {
+
+    /**
+     * Cells per side of the generated maze
+     */
+    @Param({"10", "50", "100", "200"})
+    public int cells;
+
+    /**
+     * Rotation held while stepping
+     */
+    private final InputSnapshot rotateLeft = new InputSnapshot(InputSnapshot.ROTATE_LEFT, 0);
+
+    /**
+     * World over the generated maze
+     */
+    private World world;
+
+    /**
+     * Generate the maze once per trial
+     */
+    @Setup
+    public void setUp() {
+        world = new MazeLoader(MazeGenerator.RESOURCE_PREFIX + cells + "x" + cells + ":1").load();
+    }
+
+    /**
+     * Generate the walls of a maze of the benchmarked size
+     *
+     * @return amount of wall segments
+     */
+    @Benchmark
+    public int generate() {
+        return new MazeGenerator(cells, cells, 1).generate().size();
+    }
+
+    /**
+     * One physics step with the maze turning, rotation and collisions scale with the maze size
+     *
+     * @return simulated time
+     */
+    @Benchmark
+    public double step() {
+        world.step(rotateLeft, Config.FIXED_TIMESTEP);
+        return world.getTime();
+    }
+}
@@ -0,0 +1,64 @@
+package scripts.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.GameObject.LineSegment;
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.SegmentGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapLoadingBenchmark {
+
+    /**
+     * Repetitions of the 290x290 maze per axis
+     */
+    @Param({"1", "2", "4", "8"})
+    public int tiles;
+
+    /**
+     * Maze image
+     */
+    private BufferedImage image;
+
+    /**
+     * Decode and tile the maze once per trial
+     */
+    @Setup
+    public void setUp() {
+        image = MazeFixtures.tiledMaze(tiles);
+    }
+
+    /**
+     * Wall extraction only
+     *
+     * @return extracted segments
+     */
+    @Benchmark
+    public List<LineSegment> extract() {
+        return MazeExtractor.extract(image);
+    }
+
+    /**
+     * Everything InitializeMap does after decoding: extract, compact, pack and index
+     *
+     * @return segment grid
+     */
+    @Benchmark
+    public SegmentGrid extractCompactAndIndex() {
+        List<LineSegment> lineSegments = MazeCompactor.compact(MazeExtractor.extract(image), Config.mergeParallelWalls, Config.WALL_MERGE_GAP);
+        return new SegmentGrid(new SegmentStore(lineSegments), Config.SEGMENT_GRID_CELL_SIZE);
+    }
+}
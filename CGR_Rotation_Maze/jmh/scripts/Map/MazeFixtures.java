@@ -0,0 +1,55 @@
+package scripts.Map;
+
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.SegmentGrid;
+import scripts.Physics.World;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class MazeFixtures {
+
+    /**
+     * Utility class
+     */
+    private MazeFixtures() {
+    }
+
+    /**
+     * Bundled maze repeated tiles x tiles times, keeping its indexed color model
+     *
+     * @param tiles repetitions per axis
+     * @return maze image
+     */
+    public static BufferedImage tiledMaze(int tiles) {
+        BufferedImage bf;
+
+        try (InputStream in = MazeFixtures.class.getResourceAsStream("/images/maze.png")) {
+            bf = ImageIO.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        WritableRaster raster = bf.getColorModel().createCompatibleWritableRaster(bf.getWidth() * tiles, bf.getHeight() * tiles);
+        for (int row = 0; row < tiles; row++)
+            for (int col = 0; col < tiles; col++)
+                raster.setDataElements(col * bf.getWidth(), row * bf.getHeight(), bf.getRaster());
+
+        return new BufferedImage(bf.getColorModel(), raster, bf.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * World over a tiled maze without balls
+     *
+     * @param tiles repetitions per axis
+     * @return world
+     */
+    public static World world(int tiles) {
+        SegmentStore segments = new SegmentStore(MazeExtractor.extract(tiledMaze(tiles)));
+        return new World(segments, new SegmentGrid(segments, Config.SEGMENT_GRID_CELL_SIZE));
+    }
+}
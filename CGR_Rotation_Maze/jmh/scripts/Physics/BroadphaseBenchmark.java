@@ -0,0 +1,70 @@
+package scripts.Physics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.Controller.InputSnapshot;
+import scripts.Map.MazeFixtures;
+import scripts.Map.StressScene;
+import scripts.Other.Config;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadphaseBenchmark {
+
+    /**
+     * Amount of balls in the maze
+     */
+    @Param({"100", "1000", "4000"})
+    public int balls;
+
+    /**
+     * Test every circle instead of the broadphase candidates
+     */
+    @Param({"false", "true"})
+    public boolean bruteForce;
+
+    /**
+     * Update independent groups of circles in parallel
+     */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    /**
+     * World over a 4x4 tiled maze
+     */
+    private World world;
+
+    /**
+     * Spawn the balls and let them settle for a second
+     */
+    @Setup
+    public void setUp() {
+        Config.bruteForceCollisions = bruteForce;
+        Config.parallelPhysics = parallel;
+        world = MazeFixtures.world(4);
+        StressScene.populate(world, balls, 1, 210, 210, 210 + 4 * 580, 210 + 4 * 580);
+
+        for (int i = 0; i < 60; i++)
+            world.step(InputSnapshot.NONE, Config.FIXED_TIMESTEP);
+    }
+
+    /**
+     * One physics step of all balls
+     *
+     * @return simulated time
+     */
+    @Benchmark
+    public double step() {
+        world.step(InputSnapshot.NONE, Config.FIXED_TIMESTEP);
+        return world.getTime();
+    }
+}
@@ -0,0 +1,127 @@
+package scripts.Physics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scripts.GameObject.SegmentStore;
+import scripts.Map.MazeFixtures;
+import scripts.Other.Config;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NarrowphaseBenchmark {
+
+    /**
+     * Amount of precomputed queries cycled through
+     */
+    private static final int queries = 1024;
+
+    /**
+     * Run the batched pass in SIMD lanes
+     */
+    @Param({"false", "true"})
+    public boolean vector;
+
+    /**
+     * Half extent of the queried box, larger boxes give more candidates per query
+     */
+    @Param({"8", "32"})
+    public double extent;
+
+    /**
+     * Geometry of a 4x4 tiled maze
+     */
+    private SegmentStore segments;
+
+    /**
+     * Grid candidates of every query
+     */
+    private int[][] candidates;
+
+    /**
+     * Query points
+     */
+    private double[] queryX, queryY;
+
+    /**
+     * Scratch copy the filter compacts into
+     */
+    private int[] scratch;
+
+    /**
+     * Next query
+     */
+    private int next;
+
+    /**
+     * Query random boxes once, and check that both paths keep exactly the same candidates
+     */
+    @Setup
+    public void setUp() {
+        World world = MazeFixtures.world(4);
+        segments = world.getSegments();
+        SegmentGrid grid = world.getSegmentGrid();
+
+        Random random = new Random(1);
+        candidates = new int[queries][];
+        queryX = new double[queries];
+        queryY = new double[queries];
+        int[] out = new int[segments.size()];
+
+        for (int q = 0; q < queries; q++) {
+            queryX[q] = 210 + random.nextDouble() * 4 * 580;
+            queryY[q] = 210 + random.nextDouble() * 4 * 580;
+            int n = grid.query(queryX[q] - extent, queryY[q] - extent, queryX[q] + extent, queryY[q] + extent, out);
+            candidates[q] = Arrays.copyOf(out, n);
+        }
+        scratch = new int[segments.size()];
+
+        for (int q = 0; q < queries; q++) {
+            Config.vectorNarrowphase = false;
+            int scalarKept = filter(q);
+            int[] scalar = Arrays.copyOf(scratch, scalarKept);
+
+            Config.vectorNarrowphase = true;
+            int vectorKept = filter(q);
+            if (!Arrays.equals(scalar, Arrays.copyOf(scratch, vectorKept)))
+                throw new IllegalStateException("Vector and scalar narrowphase disagree on query " + q);
+        }
+
+        Config.vectorNarrowphase = vector;
+        if (vector && !Narrowphase.isVectorized())
+            throw new IllegalStateException("Vector API unavailable, start with --add-modules jdk.incubator.vector");
+    }
+
+    /**
+     * Filter the candidates of one query
+     *
+     * @return kept candidates
+     */
+    @Benchmark
+    public int filter() {
+        next = (next + 1) & (queries - 1);
+        return filter(next);
+    }
+
+    /**
+     * Filter a copy of the candidates of a query
+     *
+     * @param q query index
+     * @return kept candidates
+     */
+    private int filter(int q) {
+        int n = candidates[q].length;
+        System.arraycopy(candidates[q], 0, scratch, 0, n);
+        return Narrowphase.filter(segments, scratch, n, queryX[q], queryY[q], extent);
+    }
+}
@@ -0,0 +1,426 @@
+package scripts.App;
+
+import javafx.scene.input.KeyCode;
+import scripts.Controller.InputSnapshot;
+import scripts.GameObject.Circle;
+import scripts.Map.MazeGenerator;
+import scripts.Map.MazeLoader;
+import scripts.Other.Config;
+import scripts.Physics.MazeTransform;
+import scripts.Physics.World;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class BatchRunner {
+
+    /**
+     * Smallest size of the cells player dwell time is collected in, in maze-local pixels
+     */
+    private static final int minDwellCellSize = 20;
+
+    /**
+     * Most cells per axis of the dwell map, larger mazes get coarser cells
+     */
+    private static final int maxDwellCells = 250;
+
+    /**
+     * Distance beyond touching at which the player counts as at the exit, contacts keep the balls a hair apart
+     */
+    private static final double exitReach = 0.5;
+
+    /**
+     * Amount of stuck spots printed in the summary
+     */
+    private static final int reportedSpots = 5;
+
+    /**
+     * Geometry shared by all runs
+     */
+    private final MazeLoader loader;
+
+    /**
+     * Simulated seconds before a run counts as unsolved
+     */
+    private final double duration;
+
+    /**
+     * Seconds random input is held before the next choice
+     */
+    private final double holdTime;
+
+    /**
+     * Scripted input as ascending times and the keys held from then on, null for random input
+     */
+    private final double[] scriptTimes;
+
+    /**
+     * Held actions of each script entry
+     */
+    private final int[] scriptButtons;
+
+    /**
+     * Size of the cells player dwell time is collected in, in maze-local pixels
+     */
+    private final int dwellCellSize;
+
+    /**
+     * Cells per row of the dwell map
+     */
+    private final int dwellCellsX;
+
+    /**
+     * Cells per column of the dwell map
+     */
+    private final int dwellCellsY;
+
+    /**
+     * Outcome of a single simulated play
+     */
+    private static class RunResult {
+
+        /**
+         * Seed of the random input
+         */
+        long seed;
+
+        /**
+         * Player reached the exit
+         */
+        boolean solved;
+
+        /**
+         * Simulated seconds until the exit was reached or the run timed out
+         */
+        double time;
+
+        /**
+         * Physics steps taken
+         */
+        int steps;
+
+        /**
+         * Closest distance between the player and the exit
+         */
+        double closestExit = Double.MAX_VALUE;
+
+        /**
+         * Steps the player spent in each dwell cell
+         */
+        final int[] dwell;
+
+        /**
+         * Constructor
+         *
+         * @param dwellCells cells of the dwell map
+         */
+        RunResult(int dwellCells) {
+            dwell = new int[dwellCells];
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param loader        loader holding the maze geometry
+     * @param duration      simulated seconds before a run counts as unsolved
+     * @param holdTime      seconds random input is held
+     * @param scriptTimes   scripted input times, null for random input
+     * @param scriptButtons actions held from each scripted time on
+     * @param mazeWidth     maze-local width the dwell map covers
+     * @param mazeHeight    maze-local height the dwell map covers
+     */
+    private BatchRunner(MazeLoader loader, double duration, double holdTime, double[] scriptTimes, int[] scriptButtons,
+                        double mazeWidth, double mazeHeight) {
+        this.loader = loader;
+        this.duration = duration;
+        this.holdTime = holdTime;
+        this.scriptTimes = scriptTimes;
+        this.scriptButtons = scriptButtons;
+        this.dwellCellSize = Math.max(minDwellCellSize, (int) Math.ceil(Math.max(mazeWidth, mazeHeight) / maxDwellCells));
+        this.dwellCellsX = (int) Math.ceil(mazeWidth / dwellCellSize);
+        this.dwellCellsY = (int) Math.ceil(mazeHeight / dwellCellSize);
+    }
+
+    /**
+     * Run simulated plays in parallel and write the results to CSV
+     *
+     * <p>Options: --runs=N --duration=SECONDS --hold=SECONDS --seed=N --script=FILE --maze=RESOURCE --stream=BOOL --out=FILE</p>
+     *
+     * @param args command line options
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (arg.startsWith("--") && split > 2)
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+
+        int runs = Integer.parseInt(options.getOrDefault("runs", "1000"));
+        double duration = Double.parseDouble(options.getOrDefault("duration", "120"));
+        double holdTime = Double.parseDouble(options.getOrDefault("hold", "0.5"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        Path out = Paths.get(options.getOrDefault("out", "batch.csv"));
+        Config.streamMaze = Boolean.parseBoolean(options.getOrDefault("stream", String.valueOf(Config.streamMaze)));
+
+        double[] scriptTimes = null;
+        List<Integer> scriptButtons = new ArrayList<>();
+        if (options.containsKey("script")) {
+            try {
+                scriptTimes = readScript(Paths.get(options.get("script")), scriptButtons);
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        String maze = options.getOrDefault("maze", Config.mazeResource);
+        MazeLoader loader = new MazeLoader(maze);
+        loader.load();
+
+        // Generated mazes may reach far past the canvas, the dwell map covers them whole
+        MazeGenerator generator = MazeGenerator.fromResource(maze);
+        double mazeWidth = generator != null ? Math.max(Config.CANVAS_WIDTH, generator.getWidth()) : Config.CANVAS_WIDTH;
+        double mazeHeight = generator != null ? Math.max(Config.CANVAS_HEIGHT, generator.getHeight()) : Config.CANVAS_HEIGHT;
+
+        BatchRunner runner = new BatchRunner(loader, duration, holdTime, scriptTimes,
+                scriptButtons.stream().mapToInt(Integer::intValue).toArray(), mazeWidth, mazeHeight);
+
+        long start = System.nanoTime();
+        RunResult[] results = IntStream.range(0, runs)
+                .parallel()
+                .mapToObj(i -> runner.run(seed + i))
+                .toArray(RunResult[]::new);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        try {
+            writeRuns(out, results);
+            runner.writeDwell(dwellPath(out), results);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        runner.report(results, wallSeconds);
+    }
+
+    /**
+     * Play one run in its own world
+     *
+     * @param seed seed of the random input
+     * @return run outcome
+     */
+    private RunResult run(long seed) {
+        World world = loader.createWorld();
+        Circle player = world.getCircles().get(0);
+        Circle exit = world.getCircles().get(1);
+        MazeTransform transform = world.getTransform();
+
+        Random random = new Random(seed);
+        int buttons = 0;
+        double nextChoice = 0;
+        int scriptIndex = 0;
+
+        RunResult result = new RunResult(dwellCellsX * dwellCellsY);
+        result.seed = seed;
+
+        while (result.time < duration) {
+            if (scriptTimes == null) {
+                if (result.time >= nextChoice) {
+                    buttons = chooseButtons(random);
+                    nextChoice += holdTime;
+                }
+            } else {
+                while (scriptIndex < scriptTimes.length && scriptTimes[scriptIndex] <= result.time)
+                    buttons = scriptButtons[scriptIndex++];
+            }
+
+            world.step(new InputSnapshot(buttons, result.steps), Config.FIXED_TIMESTEP);
+            result.time += Config.FIXED_TIMESTEP;
+            result.steps++;
+
+            // Dwell is collected in the maze frame, so turning the maze does not smear it
+            double lx = transform.toLocalX(player.getX(), player.getY());
+            double ly = transform.toLocalY(player.getX(), player.getY());
+            int cx = Math.max(0, Math.min(dwellCellsX - 1, (int) (lx / dwellCellSize)));
+            int cy = Math.max(0, Math.min(dwellCellsY - 1, (int) (ly / dwellCellSize)));
+            result.dwell[cy * dwellCellsX + cx]++;
+
+            double distance = Math.hypot(player.getX() - exit.getX(), player.getY() - exit.getY());
+            result.closestExit = Math.min(result.closestExit, distance);
+
+            if (world.isWin() || distance <= player.getRadius() + exit.getRadius() + exitReach) {
+                result.solved = true;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Pick the actions held until the next choice
+     *
+     * @param random input random
+     * @return held actions as a bitmask
+     */
+    private static int chooseButtons(Random random) {
+        double choice = random.nextDouble();
+
+        if (choice < 0.4)
+            return InputSnapshot.ROTATE_LEFT;
+        if (choice < 0.8)
+            return InputSnapshot.ROTATE_RIGHT;
+        if (choice < 0.85)
+            return InputSnapshot.FLIP;
+        return 0;
+    }
+
+    /**
+     * Read scripted input, one "seconds keys" entry per line, keys from A, D and S or - for none
+     *
+     * @param file          script file
+     * @param scriptButtons list receiving the held actions of each entry
+     * @return entry times
+     * @throws IOException if the file cannot be read
+     */
+    private static double[] readScript(Path file, List<Integer> scriptButtons) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        double[] times = new double[lines.size()];
+        int count = 0;
+
+        for (String line : lines) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts[0].isEmpty() || parts[0].startsWith("#"))
+                continue;
+
+            int buttons = 0;
+            if (parts.length > 1 && !parts[1].equals("-")) {
+                for (char key : parts[1].toUpperCase(Locale.ROOT).toCharArray())
+                    buttons |= InputSnapshot.bitOf(KeyCode.valueOf(String.valueOf(key)));
+            }
+
+            times[count++] = Double.parseDouble(parts[0]);
+            scriptButtons.add(buttons);
+        }
+
+        return Arrays.copyOf(times, count);
+    }
+
+    /**
+     * Write one line per run
+     *
+     * @param out     CSV file
+     * @param results run outcomes
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeRuns(Path out, RunResult[] results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(out))) {
+            writer.println("run,seed,solved,time,steps,closest_exit");
+
+            for (int i = 0; i < results.length; i++) {
+                RunResult r = results[i];
+                writer.printf(Locale.ROOT, "%d,%d,%b,%.4f,%d,%.2f%n", i, r.seed, r.solved, r.time, r.steps, r.closestExit);
+            }
+        }
+    }
+
+    /**
+     * Write the seconds all runs together spent in each dwell cell
+     *
+     * @param out     CSV file
+     * @param results run outcomes
+     * @throws IOException if the file cannot be written
+     */
+    private void writeDwell(Path out, RunResult[] results) throws IOException {
+        long[] dwell = totalDwell(results);
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(out))) {
+            writer.println("x,y,seconds");
+
+            for (int c = 0; c < dwell.length; c++) {
+                if (dwell[c] > 0)
+                    writer.printf(Locale.ROOT, "%d,%d,%.4f%n", (c % dwellCellsX) * dwellCellSize, (c / dwellCellsX) * dwellCellSize, dwell[c] * Config.FIXED_TIMESTEP);
+            }
+        }
+    }
+
+    /**
+     * Sum the dwell steps of all runs
+     *
+     * @param results run outcomes
+     * @return steps per dwell cell
+     */
+    private long[] totalDwell(RunResult[] results) {
+        long[] dwell = new long[dwellCellsX * dwellCellsY];
+        for (RunResult r : results) {
+            for (int c = 0; c < dwell.length; c++)
+                dwell[c] += r.dwell[c];
+        }
+        return dwell;
+    }
+
+    /**
+     * Print solve rate, completion time, stuck spots and throughput
+     *
+     * @param results     run outcomes
+     * @param wallSeconds wall-clock time of all runs
+     */
+    private void report(RunResult[] results, double wallSeconds) {
+        int solved = 0;
+        double solvedTime = 0;
+        double simulated = 0;
+
+        for (RunResult r : results) {
+            simulated += r.time;
+            if (r.solved) {
+                solved++;
+                solvedTime += r.time;
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "Runs: %d, solved: %d (%.1f%%)%n", results.length, solved, 100.0 * solved / Math.max(1, results.length));
+        if (solved > 0)
+            System.out.printf(Locale.ROOT, "Average completion time: %.2f s%n", solvedTime / solved);
+
+        long[] dwell = totalDwell(results);
+        Integer[] cells = new Integer[dwell.length];
+        for (int c = 0; c < cells.length; c++)
+            cells[c] = c;
+        Arrays.sort(cells, (a, b) -> Long.compare(dwell[b], dwell[a]));
+
+        System.out.println("Stuck spots (maze-local cell, share of simulated time):");
+        for (int k = 0; k < reportedSpots && dwell[cells[k]] > 0; k++) {
+            int c = cells[k];
+            System.out.printf(Locale.ROOT, "  %d,%d  %.1f%%%n", (c % dwellCellsX) * dwellCellSize, (c / dwellCellsX) * dwellCellSize,
+                    100.0 * dwell[c] * Config.FIXED_TIMESTEP / simulated);
+        }
+
+        System.out.printf(Locale.ROOT, "Simulated %.0f s in %.2f s wall-clock on %d cores: %.0f simulated s per second%n",
+                simulated, wallSeconds, Runtime.getRuntime().availableProcessors(), simulated / wallSeconds);
+    }
+
+    /**
+     * Derive the dwell CSV path from the runs CSV path
+     *
+     * @param out runs CSV file
+     * @return dwell CSV file
+     */
+    private static Path dwellPath(Path out) {
+        String name = out.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return out.resolveSibling(base + "-dwell.csv");
+    }
+}
@@ -0,0 +1,185 @@
+package scripts.App;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import scripts.Other.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public class FrameStats {
+
+    /**
+     * Measured quantities, durations in nanoseconds
+     */
+    public enum Metric {
+
+        /**
+         * Time between two rendered frames
+         */
+        FRAME("Frame", true),
+
+        /**
+         * All physics steps of a frame
+         */
+        UPDATE("Update", true),
+
+        /**
+         * Rotation of the maze and its segments, per step
+         */
+        ROTATION("Rotation", true),
+
+        /**
+         * Broadphase, integration and collisions of all circles, per step
+         */
+        COLLISION("Collision", true),
+
+        /**
+         * Drawing circles and maze
+         */
+        RENDER("Render", true),
+
+        /**
+         * Segments tested against circles, per step
+         */
+        SEGMENT_TESTS("Segments/step", false),
+
+        /**
+         * Segment and circle contacts, per frame
+         */
+        CONTACTS("Contacts/frame", false);
+
+        /**
+         * Label shown in the overlay and the dump
+         */
+        private final String label;
+
+        /**
+         * Values are durations in nanoseconds
+         */
+        private final boolean duration;
+
+        /**
+         * Constructor
+         *
+         * @param label    display label
+         * @param duration values are durations
+         */
+        Metric(String label, boolean duration) {
+            this.label = label;
+            this.duration = duration;
+        }
+    }
+
+    /**
+     * Histograms of the current overlay window
+     */
+    private final Histogram[] window = new Histogram[Metric.values().length];
+
+    /**
+     * Histograms since the game started
+     */
+    private final Histogram[] total = new Histogram[Metric.values().length];
+
+    /**
+     * Overlay text of the last finished window, rebuilt once per window
+     */
+    private final String[] overlayLines = new String[Metric.values().length + 1];
+
+    /**
+     * Overlay font
+     */
+    private final Font font = new Font("Monospaced", 13);
+
+    /**
+     * Constructor
+     */
+    public FrameStats() {
+        for (int m = 0; m < window.length; m++) {
+            window[m] = new Histogram();
+            total[m] = new Histogram();
+        }
+        overlayLines[0] = String.format("%-15s %9s %9s %9s", "", "p50", "p99", "max");
+    }
+
+    /**
+     * Record a measurement
+     *
+     * @param metric measured quantity
+     * @param value  duration in nanoseconds or count
+     */
+    public void record(Metric metric, long value) {
+        window[metric.ordinal()].record(value);
+        total[metric.ordinal()].record(value);
+    }
+
+    /**
+     * Finish the overlay window: format its percentiles and start a new one
+     */
+    public void roll() {
+        for (Metric metric : Metric.values()) {
+            Histogram h = window[metric.ordinal()];
+            overlayLines[metric.ordinal() + 1] = String.format(Locale.ROOT, "%-15s %9s %9s %9s",
+                    metric.label, format(metric, h.getPercentile(50)), format(metric, h.getPercentile(99)), format(metric, h.getMax()));
+            h.reset();
+        }
+    }
+
+    /**
+     * Draw the percentiles of the last window in the top left corner of the canvas
+     *
+     * @param gc Graphics context of the canvas
+     */
+    public void draw(GraphicsContext gc) {
+        if (overlayLines[1] == null)
+            return;
+
+        double lineHeight = 16;
+        gc.save();
+        gc.setFill(Color.color(0, 0, 0, 0.6));
+        gc.fillRect(8, 8, 360, lineHeight * overlayLines.length + 8);
+        gc.setFill(Color.WHITE);
+        gc.setFont(font);
+
+        for (int i = 0; i < overlayLines.length; i++)
+            gc.fillText(overlayLines[i], 14, 8 + lineHeight * (i + 1));
+
+        gc.restore();
+    }
+
+    /**
+     * Write the percentiles of all measurements since the start to a CSV file
+     *
+     * @param file target file
+     * @throws IOException if the file cannot be written
+     */
+    public void dump(Path file) throws IOException {
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("metric,unit,count,mean,p50,p90,p99,p99.9,max");
+
+            for (Metric metric : Metric.values()) {
+                Histogram h = total[metric.ordinal()];
+                writer.printf(Locale.ROOT, "%s,%s,%d,%.1f,%d,%d,%d,%d,%d%n", metric.label, metric.duration ? "ns" : "count",
+                        h.getCount(), h.getMean(), h.getPercentile(50), h.getPercentile(90), h.getPercentile(99), h.getPercentile(99.9), h.getMax());
+            }
+        }
+    }
+
+    /**
+     * Format a value for the overlay
+     *
+     * @param metric measured quantity
+     * @param value  duration in nanoseconds or count
+     * @return milliseconds for durations, plain counts otherwise
+     */
+    private static String format(Metric metric, long value) {
+        return metric.duration ? String.format(Locale.ROOT, "%.2fms", value / 1e6) : Long.toString(value);
+    }
+}
@@ -4,28 +4,66 @@ import javafx.animation.AnimationTimer;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import javafx.scene.paint.Color;
 import scripts.Controller.InputController;
+import scripts.Controller.InputLog;
+import scripts.Controller.InputSnapshot;
+import scripts.Events.FrameEvent;
 import scripts.GameObject.Circle;
-import scripts.GameObject.LineSegment;
+import scripts.Map.MazeLoader;
 import scripts.Other.Config;
+import scripts.Physics.FixedTimestep;
+import scripts.Physics.World;
+import scripts.Render.BatchedMazeRenderer;
+import scripts.Render.Camera;
+import scripts.Render.MazeLayer;
+import scripts.Render.RenderMode;
+import scripts.Render.Viewport;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.HashSet;
 
 public class Game {
 
     /**
-     * Collection of balls
+     * Simulation rendered by this game
      */
-    public static final HashSet<Circle> circles = new HashSet<>();
+    private final World world;
 
     /**
-     * Collection of line segments
+     * Pre-rendered maze
      */
-    public static final HashSet<LineSegment> lineSegments = new HashSet<>();
+    private final MazeLayer mazeLayer = new MazeLayer();
+
+    /**
+     * Batched vector maze renderer
+     */
+    private final BatchedMazeRenderer batchedMazeRenderer = new BatchedMazeRenderer();
+
+    /**
+     * Visible part of the maze
+     */
+    private final Viewport viewport = new Viewport();
+
+    /**
+     * View center following the player
+     */
+    private final Camera camera = new Camera();
+
+    /**
+     * Frame phase histograms
+     */
+    private final FrameStats frameStats = new FrameStats();
+
+    /**
+     * Recorder of the played frames, null when not recording
+     */
+    private InputLog.Recorder recorder;
+
+    /**
+     * Recorded session played back instead of keyboard input, null when playing live
+     */
+    private final InputLog replay;
 
     /**
      * Game state
@@ -52,13 +90,22 @@ public class Game {
         paused = false;
 
         // Initialize InputController
-        InputController.getInstance();
+        InputController.getInstance().attach(gc.getCanvas());
 
         image = LoadBackgroundImage();
 
-        InitializeMap();
-        InitializeBalls();
-        InitializeLineSegments();
+        replay = LoadReplay();
+        String resource = replay != null ? replay.getResource() : Config.mazeResource;
+
+        world = new MazeLoader(resource).load();
+
+        if (Config.recordFile != null) {
+            try {
+                recorder = new InputLog.Recorder(Config.recordFile, resource);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
@@ -67,194 +114,207 @@ public class Game {
     public void start() {
         new AnimationTimer() {
 
-            double pastTick = System.nanoTime();
+            long pastTick = System.nanoTime();
 
             double secondCheck = 0;
 
             int frameCount = 0;
 
+            long frameNumber = 0;
+
+            int replayFrame = 0;
+
+            long mazeCommands = 0;
+
+            long mazeNanos = 0;
+
+            final FixedTimestep timestep = new FixedTimestep(Config.FIXED_TIMESTEP, Config.MAX_CATCH_UP_STEPS);
+
             @Override
             public void handle(long currentNanoTime) {
-                double delta = ((double) currentNanoTime - pastTick) / 1e9;
+                FrameEvent frameEvent = new FrameEvent();
+                frameEvent.begin();
+
+                int frameNanos = (int) Math.min(currentNanoTime - pastTick, Integer.MAX_VALUE);
+                double delta = frameNanos / 1e9;
+                frameStats.record(FrameStats.Metric.FRAME, frameNanos);
 
                 // --- Clear Screen ---
                 gc.clearRect(0, 0, Config.CANVAS_WIDTH, Config.CANVAS_HEIGHT);
                 gc.drawImage(image, 0, 0, Config.CANVAS_WIDTH, Config.CANVAS_HEIGHT);
 
                 // --- Update ---
-                if (!paused && !Config.win) {
-                    for (Circle pb : circles)
-                        pb.update(delta);
-
-                    for (LineSegment ls : lineSegments)
-                        ls.update(delta);
+                int steps = 0;
+                long segmentTests = 0;
+                long contacts = 0;
 
-                    if (Config.flipTimer > 0.01)
-                        Config.allowFlip = false;
+                if (!paused && replay != null && replayFrame == replay.getFrameCount()) {
+                    paused = true;
+                    System.out.println("Replay finished, world checksum " + Long.toHexString(world.checksum()));
                 }
 
-                // --- Render ---
-                for (Circle pb : circles)
-                    pb.draw(gc);
+                if (!paused) {
+                    long updateStart = System.nanoTime();
+
+                    // Input is sampled once, every step of the frame sees the same snapshot
+                    InputSnapshot input;
+                    int simulatedNanos = frameNanos;
 
-                for (LineSegment ls : lineSegments)
-                    ls.draw(gc);
+                    if (replay != null) {
+                        input = replay.getInput(replayFrame);
+                        simulatedNanos = replay.getFrameNanos(replayFrame++);
+                    } else {
+                        input = InputController.getInstance().sample(frameNumber);
+                    }
+
+                    if (recorder != null)
+                        record(simulatedNanos, input);
+
+                    steps = timestep.advance(simulatedNanos / 1e9);
+                    for (int i = 0; i < steps; i++) {
+                        world.step(input, timestep.getStepTime());
+                        frameStats.record(FrameStats.Metric.ROTATION, world.getRotationNanos());
+                        frameStats.record(FrameStats.Metric.COLLISION, world.getCollisionNanos());
+                        frameStats.record(FrameStats.Metric.SEGMENT_TESTS, world.getSegmentTests());
+                        segmentTests += world.getSegmentTests();
+                        contacts += world.getContacts();
+                    }
 
-                // --- Frame Count And Update Flip Timer ---
+                    frameStats.record(FrameStats.Metric.UPDATE, System.nanoTime() - updateStart);
+                    frameStats.record(FrameStats.Metric.CONTACTS, contacts);
+                }
+
+                double alpha = paused ? 1 : timestep.getAlpha();
+
+                // --- Render ---
+                // Rotated segments snap to the current angle, a fixed maze is turned with the view
+                double angle = Config.rotateGravity
+                        ? world.getTransform().getInterpolatedAngle(alpha)
+                        : world.getTransform().getAngle();
+
+                // The camera follows the player through a maze larger than the canvas
+                camera.update(world, alpha);
+                gc.save();
+                camera.apply(gc, angle);
+
+                long renderStart = System.nanoTime();
+
+                boolean cull = Config.cullViewport;
+                if (cull)
+                    viewport.update(world.getSegmentGrid(), world.getTransform(), angle, camera);
+
+                for (Circle pb : world.getCircles())
+                    pb.draw(gc, alpha, cull ? viewport : null);
+
+                RenderMode mode = Config.renderMode;
+                long mazeStart = System.nanoTime();
+
+                if (mode == RenderMode.SEGMENTS)
+                    mazeCommands += cull
+                            ? world.getSegments().draw(gc, viewport.getVisible(), viewport.getVisibleCount())
+                            : world.getSegments().draw(gc);
+                else if (mode == RenderMode.BATCHED)
+                    mazeCommands += cull
+                            ? batchedMazeRenderer.draw(gc, world.getSegments(), viewport.getVisible(), viewport.getVisibleCount())
+                            : batchedMazeRenderer.draw(gc, world.getSegments());
+                else if (mode == RenderMode.LAYER)
+                    mazeCommands += mazeLayer.draw(gc, world.getSegments(), Config.rotateGravity ? 0 : angle,
+                            world.getTransform().getPivotX(), world.getTransform().getPivotY(), Config.MAZE_LAYER_ZOOM);
+
+                gc.restore();
+
+                long renderEnd = System.nanoTime();
+                mazeNanos += renderEnd - mazeStart;
+                frameStats.record(FrameStats.Metric.RENDER, renderEnd - renderStart);
+
+                if (Config.showFrameStats)
+                    frameStats.draw(gc);
+
+                // --- Frame Count ---
                 secondCheck += delta;
                 if (secondCheck >= 1.0f) {
-                    Main.fps.setText("FPS: " + frameCount);
+                    Main.fps.setText(String.format("FPS: %d   Maze: %s, %d cmds, %.3f ms",
+                            frameCount, mode, mazeCommands / Math.max(1, frameCount), mazeNanos / 1e6 / Math.max(1, frameCount)));
                     secondCheck = 0;
                     frameCount = 0;
+                    mazeCommands = 0;
+                    mazeNanos = 0;
+                    frameStats.roll();
                 }
-                Config.flipTimer = (Config.flipTimer < 0.0) ? 0.0 : Config.flipTimer - delta;
-                if (Config.flipTimer > -0.01 && Config.flipTimer < 0.01)
-                    Config.allowFlip = true;
                 pastTick = currentNanoTime;
                 frameCount++;
+                frameNumber++;
+
+                if (frameEvent.shouldCommit()) {
+                    frameEvent.steps = steps;
+                    frameEvent.renderMode = mode.name();
+                    frameEvent.segmentTests = segmentTests;
+                    frameEvent.contacts = contacts;
+                    frameEvent.commit();
+                }
             }
         }.start();
     }
 
     /**
-     * Initialize player ball and exit dot
+     * Append a simulated frame to the recording, recording stops on the first write error
+     *
+     * @param frameNanos frame duration fed to the timestep
+     * @param input      input of the frame
      */
-    private void InitializeBalls() {
-        // Player Circle
-        circles.add(new Circle(
-                216,
-                216,
-                7,
-                Color.RED,
-                0,
-                0,
-                100.0,
-                false
-        ));
-
-        // Maze end visualization
-        circles.add(new Circle(
-                1000 - 225,
-                1000 - 219,
-                7,
-                Color.GREEN,
-                0,
-                0,
-                100.0,
-                true
-        ));
+    private void record(int frameNanos, InputSnapshot input) {
+        try {
+            recorder.write(frameNanos, input);
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+        }
     }
 
     /**
-     * Initialize borders
+     * Finish the recording
      */
-    private void InitializeLineSegments() {
-        // Borders
-        double limiter = (double) Config.CANVAS_WIDTH / 5;
-        double frame_radius = 1;
-
-        lineSegments.add(new LineSegment(
-                0 + limiter, 0 + limiter, Config.CANVAS_WIDTH - limiter, 0 + limiter, frame_radius, false, Config.FRAME_COLOR
-        )); // Top
-
-        lineSegments.add(new LineSegment(
-                Config.CANVAS_WIDTH - limiter,
-                0 + limiter,
-                Config.CANVAS_WIDTH - limiter,
-                Config.CANVAS_HEIGHT - limiter,
-                frame_radius,
-                false,
-                Config.FRAME_COLOR
-        )); // Right
-
-        lineSegments.add(new LineSegment(
-                0 + limiter,
-                Config.CANVAS_HEIGHT - limiter,
-                Config.CANVAS_WIDTH - limiter - 50,
-                Config.CANVAS_HEIGHT - limiter,
-                frame_radius,
-                false,
-                Config.FRAME_COLOR
-        )); // Bottom
-
-        lineSegments.add(new LineSegment(
-                0 + limiter,
-                0 + limiter,
-                0 + limiter,
-                Config.CANVAS_HEIGHT - limiter,
-                frame_radius,
-                false,
-                Config.FRAME_COLOR
-        )); // Left
+    public void close() {
+        if (recorder == null)
+            return;
+
+        try {
+            recorder.close();
+            System.out.println("Input recorded to " + Config.recordFile + ", world checksum " + Long.toHexString(world.checksum()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recorder = null;
     }
 
     /**
-     * Initialize maze (290x290)
+     * Write the frame phase percentiles since the start to the stats file
      */
-    private void InitializeMap() {
-        BufferedImage bf = null;
-
+    public void dumpFrameStats() {
         try {
-            bf = ImageIO.read(getClass().getResourceAsStream("/images/maze.png"));
+            frameStats.dump(Config.FRAME_STATS_FILE);
+            System.out.println("Frame stats written to " + Config.FRAME_STATS_FILE);
         } catch (IOException e) {
             e.printStackTrace();
         }
+    }
 
-        if (bf != null) {
-            int val1 = -1;
-            int val2 = -1;
-            for (int row = 0; row < bf.getHeight(); row++) {
-                for (int col = 0; col < bf.getWidth(); col++) {
-                    // Get horizontal lines
-                    if (bf.getRGB(col, row) == -16777216 && val1 != -1) {
-                        val2 = col;
-                    }
-
-                    if (bf.getRGB(col, row) == -16777216 && val1 == -1 && col != bf.getWidth() - 1 && bf.getRGB(col + 1, row) != 0) {
-                        val1 = col;
-                    }
-
-                    if (bf.getRGB(col, row) == 0 && val2 != -1) {
-                        lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
-                        val1 = -1;
-                        val2 = -1;
-                    }
-                }
-                // Full horizontal line for row
-                if (val1 != val2 && val1 * val2 >= 0) {
-                    lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
-                    val1 = -1;
-                    val2 = -1;
-                }
-            }
-
-            val1 = -1;
-            val2 = -1;
-
-            for (int col = 0; col < bf.getWidth(); col++) {
-                for (int row = 0; row < bf.getHeight(); row++) {
-                    // Get vertical lines
-                    if (bf.getRGB(col, row) == -16777216 && val1 != -1) {
-                        val2 = row;
-                    }
-
-                    if (bf.getRGB(col, row) == -16777216 && val1 == -1 && row != bf.getHeight() - 1 && bf.getRGB(col, row + 1) != 0) {
-                        val1 = row;
-                    }
+    /**
+     * Load the session to replay and restore its settings
+     *
+     * @return recorded session, null when playing live
+     */
+    private InputLog LoadReplay() {
+        if (Config.replayFile == null)
+            return null;
 
-                    if (bf.getRGB(col, row) == 0 && val2 != -1) {
-                        lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
-                        val1 = -1;
-                        val2 = -1;
-                    }
-                }
-                // Full vertical line for row
-                if (val1 != val2 && val1 * val2 >= 0) {
-                    lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
-                    val1 = -1;
-                    val2 = -1;
-                }
-            }
+        try {
+            InputLog log = InputLog.read(Config.replayFile);
+            log.applySettings();
+            return log;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
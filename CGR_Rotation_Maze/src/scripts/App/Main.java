@@ -12,6 +12,9 @@ import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import scripts.Other.Config;
 
+import java.nio.file.Paths;
+import java.util.Map;
+
 public class Main extends Application {
 
     /**
@@ -29,6 +32,11 @@ public class Main extends Application {
      */
     private final GraphicsContext gc = canvas.getGraphicsContext2D();
 
+    /**
+     * Running game
+     */
+    private Game game;
+
     /**
      * Launch the application
      *
@@ -45,6 +53,20 @@ public class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
+        // Startup arguments
+        Map<String, String> parameters = getParameters().getNamed();
+        if (parameters.containsKey("balls"))
+            Config.stressBalls = Integer.parseInt(parameters.get("balls"));
+        if (parameters.containsKey("maze"))
+            Config.mazeResource = parameters.get("maze");
+        if (parameters.containsKey("stream"))
+            Config.streamMaze = Boolean.parseBoolean(parameters.get("stream"));
+        if (parameters.containsKey("record"))
+            Config.recordFile = Paths.get(parameters.get("record"));
+        if (parameters.containsKey("replay"))
+            Config.replayFile = Paths.get(parameters.get("replay"));
+
+        game = new Game(gc);
 
         // Layout
         BorderPane borderPane = new BorderPane();
@@ -68,6 +90,28 @@ public class Main extends Application {
         });
         topMenuRight.getChildren().add(pauseButton);
 
+        Button renderModeButton = new Button("Maze: " + Config.renderMode);
+        renderModeButton.setOnMouseClicked(mouseEvent -> {
+            Config.renderMode = Config.renderMode.next();
+            renderModeButton.setText("Maze: " + Config.renderMode);
+            canvas.requestFocus();
+        });
+        topMenuRight.getChildren().add(renderModeButton);
+
+        Button statsButton = new Button("Stats");
+        statsButton.setOnMouseClicked(mouseEvent -> {
+            Config.showFrameStats = !Config.showFrameStats;
+            canvas.requestFocus();
+        });
+        topMenuRight.getChildren().add(statsButton);
+
+        Button dumpStatsButton = new Button("Dump stats");
+        dumpStatsButton.setOnMouseClicked(mouseEvent -> {
+            game.dumpFrameStats();
+            canvas.requestFocus();
+        });
+        topMenuRight.getChildren().add(dumpStatsButton);
+
         // Top menu left side
         HBox topMenuLeft = new HBox();
         topMenuLeft.setPadding(new Insets(16, 12, 16, 12));
@@ -89,6 +133,15 @@ public class Main extends Application {
         primaryStage.setScene(new Scene(borderPane));
         primaryStage.show();
 
-        new Game(gc).start();
+        game.start();
+    }
+
+    /**
+     * Finish the recording when the window closes
+     */
+    @Override
+    public void stop() {
+        if (game != null)
+            game.close();
     }
 }
\ No newline at end of file
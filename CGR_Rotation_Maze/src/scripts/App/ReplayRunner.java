@@ -0,0 +1,65 @@
+package scripts.App;
+
+import scripts.Controller.InputLog;
+import scripts.Map.MazeLoader;
+import scripts.Other.Config;
+import scripts.Other.Histogram;
+import scripts.Physics.FixedTimestep;
+import scripts.Physics.World;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+public class ReplayRunner {
+
+    /**
+     * Replay a recorded session headless as fast as possible and print its timing and final state
+     *
+     * <p>Usage: ReplayRunner FILE</p>
+     *
+     * @param args input log file
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: ReplayRunner FILE");
+            return;
+        }
+
+        InputLog log;
+        try {
+            log = InputLog.read(Paths.get(args[0]));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        log.applySettings();
+
+        World world = new MazeLoader(log.getResource()).load();
+
+        // Same frame durations through the same timestep as the live game, so the same steps see the same input
+        FixedTimestep timestep = new FixedTimestep(Config.FIXED_TIMESTEP, Config.MAX_CATCH_UP_STEPS);
+        Histogram stepNanos = new Histogram();
+        long simulatedNanos = 0;
+
+        long start = System.nanoTime();
+        for (int frame = 0; frame < log.getFrameCount(); frame++) {
+            simulatedNanos += log.getFrameNanos(frame);
+            int steps = timestep.advance(log.getFrameNanos(frame) / 1e9);
+
+            for (int s = 0; s < steps; s++) {
+                long stepStart = System.nanoTime();
+                world.step(log.getInput(frame), timestep.getStepTime());
+                stepNanos.record(System.nanoTime() - stepStart);
+            }
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Frames: %d, steps: %d%n", log.getFrameCount(), stepNanos.getCount());
+        System.out.printf(Locale.ROOT, "Replayed %.2f s of play in %.3f s wall-clock (%.0fx)%n",
+                simulatedNanos / 1e9, wallSeconds, simulatedNanos / 1e9 / wallSeconds);
+        System.out.printf(Locale.ROOT, "Step p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                stepNanos.getPercentile(50) / 1e6, stepNanos.getPercentile(99) / 1e6, stepNanos.getMax() / 1e6);
+        System.out.println("World checksum " + Long.toHexString(world.checksum()));
+    }
+}
@@ -1,12 +1,8 @@
 package scripts.Controller;
 
 import javafx.event.EventHandler;
-import javafx.scene.input.KeyCode;
+import javafx.scene.Node;
 import javafx.scene.input.KeyEvent;
-import scripts.App.Main;
-import scripts.Other.Config;
-
-import java.util.HashSet;
 
 @SuppressWarnings("ALL")
 public class InputController {
@@ -17,30 +13,34 @@ public class InputController {
     private static InputController inputController;
 
     /**
-     * Currently pressed keys
+     * Currently held actions as a bitmask
      */
-    private final HashSet<KeyCode> currentKeys = new HashSet<>();
+    private int heldButtons;
 
     /**
      * Event handler for key press
      */
-    public EventHandler onKeyPressed = (EventHandler<KeyEvent>) event -> {
-        if (Config.keySet.contains(event.getCode())) {
-            currentKeys.add(event.getCode());
-        }
-    };
+    public EventHandler onKeyPressed = (EventHandler<KeyEvent>) event -> heldButtons |= InputSnapshot.bitOf(event.getCode());
 
     /**
      * Event handler for key release
      */
-    public EventHandler onKeyReleased = (EventHandler<KeyEvent>) event -> currentKeys.remove(event.getCode());
+    public EventHandler onKeyReleased = (EventHandler<KeyEvent>) event -> heldButtons &= ~InputSnapshot.bitOf(event.getCode());
 
     /**
      * Constructor
      */
     private InputController() {
-        Main.canvas.setOnKeyPressed(onKeyPressed);
-        Main.canvas.setOnKeyReleased(onKeyReleased);
+    }
+
+    /**
+     * Receive key events of a node
+     *
+     * @param node node that holds the keyboard focus
+     */
+    public void attach(Node node) {
+        node.setOnKeyPressed(onKeyPressed);
+        node.setOnKeyReleased(onKeyReleased);
     }
 
     /**
@@ -55,11 +55,12 @@ public class InputController {
     }
 
     /**
-     * Return Set of currently pressed keys
+     * Sample the held actions once for a frame
      *
-     * @return currently pressed keys
+     * @param frame frame number
+     * @return immutable input of the frame
      */
-    public HashSet<KeyCode> getCurrentKeys() {
-        return currentKeys;
+    public InputSnapshot sample(long frame) {
+        return new InputSnapshot(heldButtons, frame);
     }
 }
@@ -0,0 +1,252 @@
+package scripts.Controller;
+
+import scripts.Other.Config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class InputLog {
+
+    /**
+     * File magic, "CGRI"
+     */
+    private static final int MAGIC = 0x43475249;
+
+    /**
+     * Format version, bumped whenever the layout changes
+     */
+    private static final short VERSION = 2;
+
+    /**
+     * Settings flag bits stored in the header
+     */
+    private static final int ROTATE_GRAVITY = 1, CONTINUOUS_COLLISIONS = 1 << 1, BRUTE_FORCE = 1 << 2, COMPACT_MAZE = 1 << 3, MERGE_WALLS = 1 << 4,
+            STREAM_MAZE = 1 << 5, BATCHED_NARROWPHASE = 1 << 6, VECTOR_NARROWPHASE = 1 << 7;
+
+    /**
+     * Maze resource the session was played on
+     */
+    private final String resource;
+
+    /**
+     * Simulation settings of the session as flag bits
+     */
+    private final int flags;
+
+    /**
+     * Extra balls of the session
+     */
+    private final int stressBalls;
+
+    /**
+     * Physics step of the session
+     */
+    private final double stepTime;
+
+    /**
+     * Held actions of every frame
+     */
+    private final byte[] buttons;
+
+    /**
+     * Duration of every frame in nanoseconds
+     */
+    private final int[] frameNanos;
+
+    /**
+     * Constructor
+     *
+     * @param resource    maze resource
+     * @param flags       settings flag bits
+     * @param stressBalls extra balls
+     * @param stepTime    physics step
+     * @param buttons     held actions per frame
+     * @param frameNanos  frame durations
+     */
+    private InputLog(String resource, int flags, int stressBalls, double stepTime, byte[] buttons, int[] frameNanos) {
+        this.resource = resource;
+        this.flags = flags;
+        this.stressBalls = stressBalls;
+        this.stepTime = stepTime;
+        this.buttons = buttons;
+        this.frameNanos = frameNanos;
+    }
+
+    /**
+     * Writes the input and duration of every simulated frame, 5 bytes per frame
+     */
+    public static class Recorder implements Closeable {
+
+        /**
+         * Target stream
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Open a log and write the header with the current settings
+         *
+         * @param file     target file
+         * @param resource maze resource being played
+         * @throws IOException if the file cannot be written
+         */
+        public Recorder(Path file, String resource) throws IOException {
+            if (file.getParent() != null)
+                Files.createDirectories(file.getParent());
+
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(currentFlags());
+            out.writeInt(Config.stressBalls);
+            out.writeDouble(Config.FIXED_TIMESTEP);
+            out.writeUTF(resource);
+        }
+
+        /**
+         * Append one frame
+         *
+         * @param frameNanos frame duration as fed to the timestep
+         * @param input      input the frame was simulated with
+         * @throws IOException if the file cannot be written
+         */
+        public void write(int frameNanos, InputSnapshot input) throws IOException {
+            out.writeByte(input.getButtons());
+            out.writeInt(frameNanos);
+        }
+
+        /**
+         * Flush and close the log
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Read a log written by a Recorder
+     *
+     * @param file log file
+     * @return recorded session
+     * @throws IOException if the file cannot be read or is not an input log
+     */
+    public static InputLog read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                throw new IOException("Not an input log of this version: " + file);
+
+            int flags = in.readUnsignedByte();
+            int stressBalls = in.readInt();
+            double stepTime = in.readDouble();
+            String resource = in.readUTF();
+
+            byte[] buttons = new byte[1024];
+            int[] frameNanos = new int[1024];
+            int frames = 0;
+
+            while (true) {
+                int b = in.read();
+                if (b < 0)
+                    break;
+
+                if (frames == buttons.length) {
+                    buttons = Arrays.copyOf(buttons, frames * 2);
+                    frameNanos = Arrays.copyOf(frameNanos, frames * 2);
+                }
+
+                try {
+                    frameNanos[frames] = in.readInt();
+                } catch (EOFException e) {
+                    // A session cut off mid-frame keeps its complete frames
+                    break;
+                }
+                buttons[frames++] = (byte) b;
+            }
+
+            return new InputLog(resource, flags, stressBalls, stepTime,
+                    Arrays.copyOf(buttons, frames), Arrays.copyOf(frameNanos, frames));
+        }
+    }
+
+    /**
+     * Restore the simulation settings of the session, call before loading the maze
+     */
+    public void applySettings() {
+        Config.rotateGravity = (flags & ROTATE_GRAVITY) != 0;
+        Config.continuousCollisions = (flags & CONTINUOUS_COLLISIONS) != 0;
+        Config.bruteForceCollisions = (flags & BRUTE_FORCE) != 0;
+        Config.compactMaze = (flags & COMPACT_MAZE) != 0;
+        Config.mergeParallelWalls = (flags & MERGE_WALLS) != 0;
+        Config.streamMaze = (flags & STREAM_MAZE) != 0;
+        Config.batchedNarrowphase = (flags & BATCHED_NARROWPHASE) != 0;
+        Config.vectorNarrowphase = (flags & VECTOR_NARROWPHASE) != 0;
+        Config.stressBalls = stressBalls;
+
+        if (stepTime != Config.FIXED_TIMESTEP)
+            System.out.println("Input log was recorded with a step of " + stepTime + " s, replaying with " + Config.FIXED_TIMESTEP + " s");
+    }
+
+    /**
+     * Encode the settings that change the simulation
+     *
+     * @return settings flag bits
+     */
+    private static int currentFlags() {
+        return (Config.rotateGravity ? ROTATE_GRAVITY : 0)
+                | (Config.continuousCollisions ? CONTINUOUS_COLLISIONS : 0)
+                | (Config.bruteForceCollisions ? BRUTE_FORCE : 0)
+                | (Config.compactMaze ? COMPACT_MAZE : 0)
+                | (Config.mergeParallelWalls ? MERGE_WALLS : 0)
+                | (Config.streamMaze ? STREAM_MAZE : 0)
+                | (Config.batchedNarrowphase ? BATCHED_NARROWPHASE : 0)
+                | (Config.vectorNarrowphase ? VECTOR_NARROWPHASE : 0);
+    }
+
+    /**
+     * Return maze resource of the session
+     *
+     * @return classpath resource
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Return amount of recorded frames
+     *
+     * @return frame count
+     */
+    public int getFrameCount() {
+        return buttons.length;
+    }
+
+    /**
+     * Return input of a frame
+     *
+     * @param frame frame index
+     * @return input snapshot
+     */
+    public InputSnapshot getInput(int frame) {
+        return new InputSnapshot(buttons[frame] & 0xFF, frame);
+    }
+
+    /**
+     * Return duration of a frame
+     *
+     * @param frame frame index
+     * @return nanoseconds
+     */
+    public int getFrameNanos(int frame) {
+        return frameNanos[frame];
+    }
+}
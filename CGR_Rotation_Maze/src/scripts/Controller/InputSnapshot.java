@@ -0,0 +1,92 @@
+package scripts.Controller;
+
+import javafx.scene.input.KeyCode;
+import scripts.Other.Config;
+
+public final class InputSnapshot {
+
+    /**
+     * Rotate the maze counterclockwise
+     */
+    public static final int ROTATE_LEFT = 1;
+
+    /**
+     * Rotate the maze clockwise
+     */
+    public static final int ROTATE_RIGHT = 1 << 1;
+
+    /**
+     * Flip the maze by half a turn
+     */
+    public static final int FLIP = 1 << 2;
+
+    /**
+     * Snapshot without any input
+     */
+    public static final InputSnapshot NONE = new InputSnapshot(0, 0);
+
+    /**
+     * Held actions as a bitmask
+     */
+    private final int buttons;
+
+    /**
+     * Frame the input was sampled in
+     */
+    private final long frame;
+
+    /**
+     * Constructor
+     *
+     * @param buttons held actions as a bitmask
+     * @param frame   frame the input was sampled in
+     */
+    public InputSnapshot(int buttons, long frame) {
+        this.buttons = buttons;
+        this.frame = frame;
+    }
+
+    /**
+     * Return action bit of a key
+     *
+     * @param key key code
+     * @return action bit, 0 for keys without an action
+     */
+    public static int bitOf(KeyCode key) {
+        if (key == Config.ROTATE_LEFT_KEY)
+            return ROTATE_LEFT;
+        if (key == Config.ROTATE_RIGHT_KEY)
+            return ROTATE_RIGHT;
+        if (key == Config.FLIP_KEY)
+            return FLIP;
+        return 0;
+    }
+
+    /**
+     * Return whether an action is held
+     *
+     * @param action action bit
+     * @return action held
+     */
+    public boolean isHeld(int action) {
+        return (buttons & action) != 0;
+    }
+
+    /**
+     * Return held actions
+     *
+     * @return bitmask of action bits
+     */
+    public int getButtons() {
+        return buttons;
+    }
+
+    /**
+     * Return frame the input was sampled in
+     *
+     * @return frame number
+     */
+    public long getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,40 @@
+package scripts.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cgr.CollisionPass")
+@Label("Collision Pass")
+@Category({"Rotation Maze", "Physics"})
+@Description("Collision handling of one circle: a discrete correction pass or a continuous sweep")
+@StackTrace(false)
+public class CollisionPassEvent extends Event {
+
+    /**
+     * Position of the circle in the world
+     */
+    @Label("Circle")
+    public int circle;
+
+    /**
+     * Swept instead of corrected
+     */
+    @Label("Continuous")
+    public boolean continuous;
+
+    /**
+     * Segments tested during the pass
+     */
+    @Label("Segments Tested")
+    public int segmentTests;
+
+    /**
+     * Segment and circle contacts during the pass
+     */
+    @Label("Contacts")
+    public int contacts;
+}
@@ -0,0 +1,40 @@
+package scripts.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cgr.Frame")
+@Label("Frame")
+@Category({"Rotation Maze", "Rendering"})
+@Description("One pass of the game loop: physics steps and drawing")
+@StackTrace(false)
+public class FrameEvent extends Event {
+
+    /**
+     * Physics steps taken in this frame
+     */
+    @Label("Physics Steps")
+    public int steps;
+
+    /**
+     * How the maze was drawn
+     */
+    @Label("Render Mode")
+    public String renderMode;
+
+    /**
+     * Segments tested during all steps of the frame
+     */
+    @Label("Segments Tested")
+    public long segmentTests;
+
+    /**
+     * Contacts during all steps of the frame
+     */
+    @Label("Contacts")
+    public long contacts;
+}
@@ -0,0 +1,32 @@
+package scripts.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cgr.MazeLoad")
+@Label("Maze Load")
+@Category({"Rotation Maze", "Loading"})
+@Description("Maze geometry read from the cache or extracted from the image")
+public class MazeLoadEvent extends Event {
+
+    /**
+     * Classpath resource of the maze image
+     */
+    @Label("Resource")
+    public String resource;
+
+    /**
+     * Geometry came from the binary cache
+     */
+    @Label("From Cache")
+    public boolean fromCache;
+
+    /**
+     * Line segments after compaction
+     */
+    @Label("Segments")
+    public int segments;
+}
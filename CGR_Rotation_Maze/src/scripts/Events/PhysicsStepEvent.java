@@ -0,0 +1,40 @@
+package scripts.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cgr.PhysicsStep")
+@Label("Physics Step")
+@Category({"Rotation Maze", "Physics"})
+@Description("One fixed step of the world")
+@StackTrace(false)
+public class PhysicsStepEvent extends Event {
+
+    /**
+     * Circles in the world
+     */
+    @Label("Circles")
+    public int circles;
+
+    /**
+     * Independent circle groups
+     */
+    @Label("Islands")
+    public int islands;
+
+    /**
+     * Segments tested during the step
+     */
+    @Label("Segments Tested")
+    public long segmentTests;
+
+    /**
+     * Contacts during the step
+     */
+    @Label("Contacts")
+    public long contacts;
+}
@@ -0,0 +1,34 @@
+package scripts.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cgr.RotationInput")
+@Label("Rotation Input")
+@Category({"Rotation Maze", "Input"})
+@Description("Maze rotation applied from player input in one step")
+@StackTrace(false)
+public class RotationInputEvent extends Event {
+
+    /**
+     * Rotation of the step in radians
+     */
+    @Label("Rotation")
+    public double rotation;
+
+    /**
+     * The maze flipped by half a turn
+     */
+    @Label("Flip")
+    public boolean flip;
+
+    /**
+     * Maze angle after the step in radians
+     */
+    @Label("Angle")
+    public double angle;
+}
@@ -1,61 +1,86 @@
 package scripts.GameObject;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
-import scripts.App.Game;
-import scripts.Controller.InputController;
+import scripts.Events.CollisionPassEvent;
 import scripts.Other.Config;
+import scripts.Physics.CircleBroadphase;
+import scripts.Physics.MazeTransform;
+import scripts.Physics.Narrowphase;
+import scripts.Physics.SegmentGrid;
+import scripts.Physics.World;
+import scripts.Render.Viewport;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Circle {
 
     /**
-     * Mid point of the canvas on x axis
+     * Amount of physics adjustments per update
      */
-    private static final double midPointX = (double) Config.CANVAS_WIDTH / 2;
+    private static final int nSimulationUpdates = 4;
 
     /**
-     * Mid point of the canvas on y axis
+     * Amount of steps for physics adjustments
      */
-    private static final double midPointY = (double) Config.CANVAS_HEIGHT / 2;
+    private static final int maxSimulationSteps = 15;
 
     /**
-     * Amount of physics adjustments per update
+     * Amount of impacts resolved per update in continuous mode
      */
-    private static final int nSimulationUpdates = 4;
+    private static final int maxImpactEvents = 4;
 
     /**
-     * Amount of steps for physics adjustments
+     * Color of the game object
      */
-    private static final int maxSimulationSteps = 15;
+    private final Color color;
 
     /**
-     * Gravity factor
+     * List of circles that collide with this circle
      */
-    private static final double gravityFactor = 600.0f;
+    private final ArrayList<Circle> collidedCircles = new ArrayList<>();
 
     /**
-     * Input controller
+     * Line segment contacts of the current collision step, treated as static circles at the closest point
      */
-    private final InputController inputController = InputController.getInstance();
+    private double[] contactX = new double[8], contactY = new double[8];
 
     /**
-     * Color of the game object
+     * Velocity and mass of the contact circles
      */
-    private final Color color;
+    private double[] contactVx = new double[8], contactVy = new double[8], contactMass = new double[8];
 
     /**
-     * List of circles that collide with this circle
+     * Amount of recorded line segment contacts
      */
-    private final ArrayList<Circle> collidedCircles = new ArrayList<>();
+    private int contactCount;
+
+    /**
+     * Segment grid query results of the current collision step
+     */
+    private int[] segmentCandidates = new int[64];
 
     /**
-     * List of simulated line-segment circles that collide with this circle
+     * Flight recorder event of the current collision pass, reused so passes allocate nothing
      */
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
-    private final ArrayList<Circle> fakeBalls = new ArrayList<>();
+    private final CollisionPassEvent passEvent = new CollisionPassEvent();
+
+    /**
+     * Closest segment point of the earliest impact found by the current sweep
+     */
+    private double impactX, impactY;
+
+    /**
+     * Segments tested since the counters were last taken
+     */
+    private int segmentTests;
+
+    /**
+     * Segment and circle contacts since the counters were last taken
+     */
+    private int contacts;
 
     /**
      * Mass of the player object
@@ -72,6 +97,11 @@ public class Circle {
      */
     private final boolean isMarker;
 
+    /**
+     * Position in the circle list of the world
+     */
+    private int index;
+
     /**
      * x position of the circle
      */
@@ -82,6 +112,11 @@ public class Circle {
      */
     private double py;
 
+    /**
+     * Position after the previous physics step, for interpolated rendering
+     */
+    private double prevX, prevY;
+
     /**
      * old x position before updates
      */
@@ -120,8 +155,8 @@ public class Circle {
      * @param isMarker updated physics
      */
     public Circle(double x, double y, double radius, Color color, double vx, double vy, double mass, boolean isMarker) {
-        this.px = x;
-        this.py = y;
+        this.px = this.prevX = x;
+        this.py = this.prevY = y;
         this.radius = radius;
         this.color = color;
         this.mass = mass;
@@ -133,25 +168,30 @@ public class Circle {
     /**
      * Updates per frame
      *
+     * @param world     world the circle lives in
      * @param deltaTime Passed time since last frame
      */
-    public void update(double deltaTime) {
-        if (!inputController.getCurrentKeys().isEmpty()) {
-            if (inputController.getCurrentKeys().contains(KeyCode.A))
-                this.rotateAroundMidPoint(false, false);
-
-            if (inputController.getCurrentKeys().contains(KeyCode.D))
-                this.rotateAroundMidPoint(true, false);
-
-            if (inputController.getCurrentKeys().contains(KeyCode.S) && ((Config.flipTimer > -0.01 && Config.flipTimer < 0.01) || Config.allowFlip)) {
-                Config.flipTimer = 0.5;
-                this.rotateAroundMidPoint(true, true);
-            }
-        }
+    public void update(World world, double deltaTime) {
+        // Rotation snaps together with the maze, only the motion below is interpolated
+        this.prevX = this.px;
+        this.prevY = this.py;
 
         if (this.isMarker)
             return;
 
+        if (Config.continuousCollisions)
+            this.updateContinuous(world, deltaTime);
+        else
+            this.updateDiscrete(world, deltaTime);
+    }
+
+    /**
+     * Integrate in fixed sub-steps and push the circle out of overlaps after each of them
+     *
+     * @param world     world the circle lives in
+     * @param deltaTime Passed time since last frame
+     */
+    private void updateDiscrete(World world, double deltaTime) {
         double simElapsedTime = deltaTime / (double) nSimulationUpdates;
 
         for (int i = 0; i < nSimulationUpdates; i++) {
@@ -169,11 +209,13 @@ public class Circle {
                     this.px += this.vx * this.simTimeRemaining;
                     this.py += this.vy * this.simTimeRemaining;
 
-                    // Wrap the balls around screen
-                    if (this.px < 0) this.px += Config.CANVAS_WIDTH;
-                    if (this.px >= Config.CANVAS_WIDTH) this.px -= Config.CANVAS_WIDTH;
-                    if (this.py < 0) this.py += Config.CANVAS_HEIGHT;
-                    if (this.py >= Config.CANVAS_HEIGHT) this.py -= Config.CANVAS_HEIGHT;
+                    // Wrap the balls around screen, a maze with outer walls is left through its exit instead
+                    if (!world.isBounded()) {
+                        if (this.px < 0) this.px += Config.CANVAS_WIDTH;
+                        if (this.px >= Config.CANVAS_WIDTH) this.px -= Config.CANVAS_WIDTH;
+                        if (this.py < 0) this.py += Config.CANVAS_HEIGHT;
+                        if (this.py >= Config.CANVAS_HEIGHT) this.py -= Config.CANVAS_HEIGHT;
+                    }
 
                     // Clamp velocity near zero
                     if (Math.abs(this.vx * this.vx + this.vy * this.vy) < 0.01f) {
@@ -183,128 +225,671 @@ public class Circle {
                 }
 
                 // Update acceleration
-                this.ax = -this.vx * 0.8;
-                this.ay = -this.vy * 0.8 + gravityFactor;
+                this.ax = -this.vx * 0.8 + world.getGravityX();
+                this.ay = -this.vy * 0.8 + world.getGravityY();
+
+                this.handleCollisions(world);
+            }
+        }
+    }
+
+    /**
+     * Sweep the circle along its velocity and stop at each impact instead of correcting overlaps afterwards
+     *
+     * @param world     world the circle lives in
+     * @param deltaTime Passed time since last frame
+     */
+    void updateContinuous(World world, double deltaTime) {
+        passEvent.begin();
+        int testsBefore = segmentTests;
+        int contactsBefore = contacts;
+
+        this.ax = -this.vx * 0.8 + world.getGravityX();
+        this.ay = -this.vy * 0.8 + world.getGravityY();
+        this.vx += this.ax * deltaTime;
+        this.vy += this.ay * deltaTime;
+
+        double remaining = deltaTime;
+
+        for (int event = 0; event < maxImpactEvents && remaining > 0; event++) {
+            double mx = this.vx * remaining;
+            double my = this.vy * remaining;
+
+            double toi = this.findImpact(world, mx, my);
+            this.px += mx * toi;
+            this.py += my * toi;
+            remaining -= remaining * toi;
+
+            if (toi >= 1)
+                break;
+
+            // Bounce exactly like a discrete contact with the closest point
+            this.addContact(impactX, impactY);
+            this.respondToContact(0);
+            contactCount = 0;
+        }
+
+        // Wrap the balls around screen, a maze with outer walls is left through its exit instead
+        if (!world.isBounded()) {
+            if (this.px < 0) this.px += Config.CANVAS_WIDTH;
+            if (this.px >= Config.CANVAS_WIDTH) this.px -= Config.CANVAS_WIDTH;
+            if (this.py < 0) this.py += Config.CANVAS_HEIGHT;
+            if (this.py >= Config.CANVAS_HEIGHT) this.py -= Config.CANVAS_HEIGHT;
+        }
+
+        // Clamp velocity near zero
+        if (Math.abs(this.vx * this.vx + this.vy * this.vy) < 0.01f) {
+            this.vx = 0;
+            this.vy = 0;
+        }
 
-                this.handleCollisions();
+        // Circles are resolved once after the sweep
+        List<Circle> circles = world.getCircles();
+        if (Config.bruteForceCollisions) {
+            for (int k = 0; k < circles.size(); k++) {
+                Circle circle = circles.get(k);
+
+                if (circle != this && doCirclesCollide(circle.px, circle.py, circle.radius)) {
+                    contacts++;
+                    this.separateFrom(circle);
+                    this.bounceOff(circle);
+                }
+            }
+        } else {
+            CircleBroadphase broadphase = world.getCircleBroadphase();
+
+            for (int c = broadphase.getCandidatesStart(index); c < broadphase.getCandidatesEnd(index); c++) {
+                Circle circle = circles.get(broadphase.getCandidate(c));
+
+                if (doCirclesCollide(circle.px, circle.py, circle.radius)) {
+                    contacts++;
+                    this.separateFrom(circle);
+                    this.bounceOff(circle);
+                }
             }
         }
 
-        if (this.px > Config.CANVAS_HEIGHT)
-            Config.win = true;
+        if (passEvent.shouldCommit()) {
+            passEvent.circle = index;
+            passEvent.continuous = true;
+            passEvent.segmentTests = segmentTests - testsBefore;
+            passEvent.contacts = contacts - contactsBefore;
+            passEvent.commit();
+        }
+    }
+
+    /**
+     * Find the earliest impact of the circle moving by (mx, my) with a line segment
+     *
+     * @param world world the circle lives in
+     * @param mx    x movement
+     * @param my    y movement
+     * @return fraction of the movement before the impact, 1 if nothing is hit
+     */
+    private double findImpact(World world, double mx, double my) {
+        SegmentStore segments = world.getSegments();
+        double toi = 1;
+
+        if (Config.bruteForceCollisions) {
+            for (int i = 0; i < segments.size() && toi > 0; i++)
+                toi = this.sweepSegment(segments, i, mx, my, toi);
+            return toi;
+        }
+
+        SegmentGrid grid = world.getSegmentGrid();
+        MazeTransform transform = world.getTransform();
+
+        // Box around the whole sweep
+        double reach = Math.max(Math.abs(mx), Math.abs(my)) / 2 + this.radius + grid.getMaxRadius();
+        double lx = transform.toLocalX(this.px + mx / 2, this.py + my / 2);
+        double ly = transform.toLocalY(this.px + mx / 2, this.py + my / 2);
+        double rx = transform.localExtentX(reach);
+        double ry = transform.localExtentY(reach);
+
+        int n = grid.query(lx - rx, ly - ry, lx + rx, ly + ry, segmentCandidates);
+        if (n < 0) {
+            segmentCandidates = new int[-n * 2];
+            n = grid.query(lx - rx, ly - ry, lx + rx, ly + ry, segmentCandidates);
+        }
+
+        // Every point of the sweep lies within half its length of the midpoint
+        if (Config.batchedNarrowphase)
+            n = Narrowphase.filter(segments, segmentCandidates, n, this.px + mx / 2, this.py + my / 2,
+                    this.radius + Math.sqrt(mx * mx + my * my) / 2);
+
+        for (int i = 0; i < n && toi > 0; i++)
+            toi = this.sweepSegment(segments, segmentCandidates[i], mx, my, toi);
+
+        return toi;
+    }
+
+    /**
+     * Time of impact of the moving circle with the capsule around a line segment
+     *
+     * @param segments segment store
+     * @param i        index of the segment to test
+     * @param mx       x movement
+     * @param my       y movement
+     * @param best     earliest impact found so far
+     * @return earliest impact including this segment
+     */
+    private double sweepSegment(SegmentStore segments, int i, double mx, double my, double best) {
+        segmentTests++;
+
+        double sx = segments.sx[i];
+        double sy = segments.sy[i];
+        double dx = segments.dx[i];
+        double dy = segments.dy[i];
+        double invLengthSq = segments.invLengthSq[i];
+        double reach = this.radius + segments.radius[i];
+
+        // Already touching: push out, and stop right away if still moving into the segment
+        double t = Math.max(0, Math.min(1, ((this.px - sx) * dx + (this.py - sy) * dy) * invLengthSq));
+        double cx = sx + t * dx;
+        double cy = sy + t * dy;
+        double ox = this.px - cx;
+        double oy = this.py - cy;
+        double distanceSq = ox * ox + oy * oy;
+
+        if (distanceSq <= reach * reach) {
+            double distance = Math.sqrt(distanceSq);
+            if (distance > 0 && distance < reach) {
+                this.px += ox / distance * (reach - distance);
+                this.py += oy / distance * (reach - distance);
+            }
+
+            if (ox * mx + oy * my < 0) {
+                impactX = cx;
+                impactY = cy;
+                return 0;
+            }
+            return best;
+        }
+
+        // Flat sides of the capsule
+        if (invLengthSq > 0) {
+            double inv = Math.sqrt(invLengthSq);
+            double nx = -dy * inv;
+            double ny = dx * inv;
+            double s0 = (this.px - sx) * nx + (this.py - sy) * ny;
+            double sv = mx * nx + my * ny;
+
+            if (s0 * sv < 0) {
+                double th = ((s0 > 0 ? reach : -reach) - s0) / sv;
+
+                if (th >= 0 && th < best) {
+                    double u = ((this.px + th * mx - sx) * dx + (this.py + th * my - sy) * dy) * invLengthSq;
+
+                    if (u >= 0 && u <= 1) {
+                        best = th;
+                        impactX = sx + u * dx;
+                        impactY = sy + u * dy;
+                    }
+                }
+            }
+        }
+
+        // Round caps
+        best = this.sweepPoint(sx, sy, reach, mx, my, best);
+        return this.sweepPoint(segments.ex[i], segments.ey[i], reach, mx, my, best);
+    }
+
+    /**
+     * Time of impact of the moving circle center with a circle around a point
+     *
+     * @param cx    point x position
+     * @param cy    point y position
+     * @param reach combined radius
+     * @param mx    x movement
+     * @param my    y movement
+     * @param best  earliest impact found so far
+     * @return earliest impact including this point
+     */
+    private double sweepPoint(double cx, double cy, double reach, double mx, double my, double best) {
+        double fx = this.px - cx;
+        double fy = this.py - cy;
+        double a = mx * mx + my * my;
+        double b = fx * mx + fy * my;
+
+        if (a == 0 || b >= 0)
+            return best;
+
+        double discriminant = b * b - a * (fx * fx + fy * fy - reach * reach);
+        if (discriminant < 0)
+            return best;
+
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        if (t >= 0 && t < best) {
+            impactX = cx;
+            impactY = cy;
+            return t;
+        }
+        return best;
     }
 
     /**
      * Draw circle
      *
-     * @param gc Graphics context of canvas to draw on
+     * @param gc       Graphics context of canvas to draw on
+     * @param alpha    interpolation factor between the previous and the current physics step
+     * @param viewport visible canvas region, null to draw unconditionally
      */
-    public void draw(GraphicsContext gc) {
+    public void draw(GraphicsContext gc, double alpha, Viewport viewport) {
+        double x = getInterpolatedX(alpha);
+        double y = getInterpolatedY(alpha);
+
+        if (viewport != null && !viewport.isVisible(x, y, this.radius))
+            return;
+
         gc.setFill(this.color);
-        gc.fillOval(this.px - this.radius, this.py - radius, this.radius * 2, this.radius * 2);
+        gc.fillOval(x - this.radius, y - radius, this.radius * 2, this.radius * 2);
     }
 
     /**
-     * Handles collisions with other circles
+     * Return x position between the previous and the current physics step
+     *
+     * @param alpha interpolation factor, 0 to 1
+     * @return x position
      */
-    private void handleCollisions() {
-        // Edge collisions
-        for (LineSegment ls : Game.lineSegments) {
-            // Check that line formed by velocity vector, intersects with line segment
-            double fLineX1 = ls.ex - ls.sx;
-            double fLineY1 = ls.ey - ls.sy;
+    public double getInterpolatedX(double alpha) {
+        return isInterpolated() ? prevX + (px - prevX) * alpha : px;
+    }
 
-            double fLineX2 = this.px - ls.sx;
-            double fLineY2 = this.py - ls.sy;
+    /**
+     * Return y position between the previous and the current physics step
+     *
+     * @param alpha interpolation factor, 0 to 1
+     * @return y position
+     */
+    public double getInterpolatedY(double alpha) {
+        return isInterpolated() ? prevY + (py - prevY) * alpha : py;
+    }
 
-            double fEdgeLength = fLineX1 * fLineX1 + fLineY1 * fLineY1;
+    /**
+     * Return whether the last step is interpolated, never across a wrap around the screen
+     *
+     * @return step interpolated
+     */
+    private boolean isInterpolated() {
+        return Math.abs(px - prevX) < Config.CANVAS_WIDTH / 2.0 && Math.abs(py - prevY) < Config.CANVAS_HEIGHT / 2.0;
+    }
 
-            double t = Math.max(0, Math.min(fEdgeLength, (fLineX1 * fLineX2 + fLineY1 * fLineY2))) / fEdgeLength;
+    /**
+     * Return x position
+     *
+     * @return x position
+     */
+    public double getX() {
+        return px;
+    }
 
-            double fClosestPointX = ls.sx + t * fLineX1;
-            double fClosestPointY = ls.sy + t * fLineY1;
+    /**
+     * Return y position
+     *
+     * @return y position
+     */
+    public double getY() {
+        return py;
+    }
 
-            double fDistance = Math.sqrt((this.px - fClosestPointX) * (this.px - fClosestPointX) + (this.py - fClosestPointY) * (this.py - fClosestPointY));
+    /**
+     * Return x velocity
+     *
+     * @return x velocity
+     */
+    public double getVx() {
+        return vx;
+    }
 
-            if (fDistance <= (this.radius + ls.radius)) {
-                Circle fakeBall = new Circle(fClosestPointX, fClosestPointY, ls.radius, Color.BLACK, -this.vx, -this.vy, this.mass * 0.8, false);
+    /**
+     * Return y velocity
+     *
+     * @return y velocity
+     */
+    public double getVy() {
+        return vy;
+    }
 
-                fakeBalls.add(fakeBall);
+    /**
+     * Return radius
+     *
+     * @return radius
+     */
+    public double getRadius() {
+        return radius;
+    }
 
-                collidedCircles.add(fakeBall);
+    /**
+     * Return whether the circle is a marker without physics
+     *
+     * @return marker
+     */
+    public boolean isMarker() {
+        return isMarker;
+    }
 
-                double fOverlap = 1.0f * (fDistance - this.radius - fakeBall.radius);
+    /**
+     * Set position in the circle list of the world
+     *
+     * @param index list position
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
 
-                this.px -= fOverlap * (this.px - fakeBall.px) / fDistance;
-                this.py -= fOverlap * (this.py - fakeBall.py) / fDistance;
+    /**
+     * Return and reset the amount of segments tested since the last call
+     *
+     * @return segments tested
+     */
+    public int takeSegmentTests() {
+        int tests = segmentTests;
+        segmentTests = 0;
+        return tests;
+    }
+
+    /**
+     * Return and reset the amount of contacts since the last call
+     *
+     * @return segment and circle contacts
+     */
+    public int takeContacts() {
+        int count = contacts;
+        contacts = 0;
+        return count;
+    }
+
+    /**
+     * Place the circle, used to set up benchmark scenarios
+     *
+     * @param x  x position
+     * @param y  y position
+     * @param vx x velocity
+     * @param vy y velocity
+     */
+    void setState(double x, double y, double vx, double vy) {
+        this.px = this.ox = this.prevX = x;
+        this.py = this.oy = this.prevY = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.ax = 0;
+        this.ay = 0;
+        this.simTimeRemaining = 0;
+    }
+
+    /**
+     * Handles collisions with other circles
+     *
+     * @param world world the circle lives in
+     */
+    void handleCollisions(World world) {
+        passEvent.begin();
+        int testsBefore = segmentTests;
+        int contactsBefore = contacts;
+
+        // Edge collisions
+        SegmentStore segments = world.getSegments();
+
+        if (Config.bruteForceCollisions) {
+            for (int i = 0; i < segments.size(); i++)
+                this.collideWithSegment(segments, i);
+        } else {
+            SegmentGrid grid = world.getSegmentGrid();
+            MazeTransform transform = world.getTransform();
+
+            // Generous reach so position corrections within this pass stay inside the queried cells
+            double reach = 2 * this.radius + grid.getMaxRadius();
+            double lx = transform.toLocalX(this.px, this.py);
+            double ly = transform.toLocalY(this.px, this.py);
+            double rx = transform.localExtentX(reach);
+            double ry = transform.localExtentY(reach);
+
+            int n = grid.query(lx - rx, ly - ry, lx + rx, ly + ry, segmentCandidates);
+            if (n < 0) {
+                segmentCandidates = new int[-n * 2];
+                n = grid.query(lx - rx, ly - ry, lx + rx, ly + ry, segmentCandidates);
             }
+
+            // Same generous reach as the query, measured to the segments instead of their cells
+            if (Config.batchedNarrowphase)
+                n = Narrowphase.filter(segments, segmentCandidates, n, this.px, this.py, 2 * this.radius);
+
+            for (int i = 0; i < n; i++)
+                this.collideWithSegment(segments, segmentCandidates[i]);
         }
 
         // Static collisions
-        for (Circle circle : Game.circles) {
-            if (circle != this) {
-                if (doCirclesCollide(circle.px, circle.py, circle.radius)) {
-                    collidedCircles.add(circle);
-
-                    // Distance between ball centers
-                    double fDistance = Math.sqrt((this.px - circle.px) * (this.px - circle.px) + (this.py - circle.py) * (this.py - circle.py));
+        List<Circle> circles = world.getCircles();
+        if (Config.bruteForceCollisions) {
+            for (int k = 0; k < circles.size(); k++) {
+                Circle circle = circles.get(k);
+
+                if (circle != this) {
+                    if (doCirclesCollide(circle.px, circle.py, circle.radius)) {
+                        contacts++;
+                        collidedCircles.add(circle);
+                        this.separateFrom(circle);
+                    }
+                }
 
-                    // Calculate displacement required
-                    double fOverlap = 0.5f * (fDistance - this.radius - circle.radius);
+                this.simTimeRemaining -= this.timeDisplacement();
+            }
+        } else {
+            // Time is displaced once per circle in the world, one subtraction each so the result stays that of brute force
+            CircleBroadphase broadphase = world.getCircleBroadphase();
+            int next = 0;
 
-                    // Displace Current Ball away from collision
-                    this.px -= fOverlap * (this.px - circle.px) / fDistance;
-                    this.py -= fOverlap * (this.py - circle.py) / fDistance;
+            for (int c = broadphase.getCandidatesStart(index); c < broadphase.getCandidatesEnd(index); c++) {
+                int k = broadphase.getCandidate(c);
+                Circle circle = circles.get(k);
 
-                    // Displace Target Ball away from collision
-                    circle.px += fOverlap * (this.px - circle.px) / fDistance;
-                    circle.py += fOverlap * (this.py - circle.py) / fDistance;
+                this.displaceTime(k - next);
 
+                if (doCirclesCollide(circle.px, circle.py, circle.radius)) {
+                    contacts++;
+                    collidedCircles.add(circle);
+                    this.separateFrom(circle);
                 }
+
+                this.simTimeRemaining -= this.timeDisplacement();
+                next = k + 1;
             }
 
-            // Time displacement
-            double intendedSpeed = Math.sqrt(this.vx * this.vx + this.vy * this.vy);
-            double actualDistance = Math.sqrt((this.px - this.ox) * (this.px - this.ox) + (this.py - this.oy) * (this.py - this.oy));
-            double actualTime = actualDistance / intendedSpeed;
+            this.displaceTime(circles.size() - next);
+        }
+
+        // Dynamic collisions with line segments
+        for (int k = 0; k < contactCount; k++)
+            this.respondToContact(k);
 
-            this.simTimeRemaining = this.simTimeRemaining - actualTime;
+        // Dynamic collisions with circles
+        for (int k = 0; k < collidedCircles.size(); k++)
+            this.bounceOff(collidedCircles.get(k));
+
+        collidedCircles.clear();
+        contactCount = 0;
+
+        if (passEvent.shouldCommit()) {
+            passEvent.circle = index;
+            passEvent.continuous = false;
+            passEvent.segmentTests = segmentTests - testsBefore;
+            passEvent.contacts = contacts - contactsBefore;
+            passEvent.commit();
         }
+    }
+
+    /**
+     * Displace the remaining time once for each of a run of circles that left the position unchanged
+     *
+     * @param times amount of skipped circles
+     */
+    private void displaceTime(int times) {
+        double displacement = this.timeDisplacement();
+        for (int i = 0; i < times; i++)
+            this.simTimeRemaining -= displacement;
+    }
+
+    /**
+     * Time the circle needed for the distance it actually moved in this step
+     *
+     * @return time displacement
+     */
+    private double timeDisplacement() {
+        double intendedSpeed = Math.sqrt(this.vx * this.vx + this.vy * this.vy);
+        double actualDistance = Math.sqrt((this.px - this.ox) * (this.px - this.ox) + (this.py - this.oy) * (this.py - this.oy));
+        return actualDistance / intendedSpeed;
+    }
+
+    /**
+     * Displace this and an overlapping circle by half the overlap each
+     *
+     * @param circle overlapping circle
+     */
+    private void separateFrom(Circle circle) {
+        // Distance between ball centers
+        double fDistance = Math.sqrt((this.px - circle.px) * (this.px - circle.px) + (this.py - circle.py) * (this.py - circle.py));
+
+        // Calculate displacement required
+        double fOverlap = 0.5f * (fDistance - this.radius - circle.radius);
+
+        // Displace Current Ball away from collision
+        this.px -= fOverlap * (this.px - circle.px) / fDistance;
+        this.py -= fOverlap * (this.py - circle.py) / fDistance;
+
+        // Displace Target Ball away from collision
+        circle.px += fOverlap * (this.px - circle.px) / fDistance;
+        circle.py += fOverlap * (this.py - circle.py) / fDistance;
+    }
+
+    /**
+     * Exchange momentum with a touching circle
+     *
+     * @param circle touching circle
+     */
+    private void bounceOff(Circle circle) {
+        // Distance between balls
+        double fDistance = Math.sqrt((this.px - circle.px) * (this.px - circle.px) + (this.py - circle.py) * (this.py - circle.py));
+
+        // Normal
+        double nx = (circle.px - this.px) / fDistance;
+        double ny = (circle.py - this.py) / fDistance;
+
+        // Tangent
+        double tx = -ny;
+        double ty = nx;
+
+        // Dot Product Tangent
+        double dpTan1 = this.vx * tx + this.vy * ty;
+        double dpTan2 = circle.vx * tx + circle.vy * ty;
+
+        // Dot Product Normal
+        double dpNorm1 = this.vx * nx + this.vy * ny;
+        double dpNorm2 = circle.vx * nx + circle.vy * ny;
+
+        // Conservation of momentum in 1D
+        double m1 = (dpNorm1 * (this.mass - circle.mass) + 1.35f * circle.mass * dpNorm2) / (this.mass + circle.mass);
+        double m2 = (dpNorm2 * (circle.mass - this.mass) + 1.35f * this.mass * dpNorm1) / (this.mass + circle.mass);
+
+        // Update ball velocities
+        this.vx = tx * dpTan1 + nx * m1;
+        this.vy = ty * dpTan1 + ny * m1;
+        circle.vx = tx * dpTan2 + nx * m2;
+        circle.vy = ty * dpTan2 + ny * m2;
+    }
+
+    /**
+     * Push the circle out of a line segment and record the contact
+     *
+     * @param segments segment store
+     * @param i        index of the segment to test
+     */
+    private void collideWithSegment(SegmentStore segments, int i) {
+        segmentTests++;
+
+        double sx = segments.sx[i];
+        double sy = segments.sy[i];
+        double segmentRadius = segments.radius[i];
 
-        // Dynamic collisions
-        for (Circle circle : collidedCircles) {
-            // Distance between balls
-            double fDistance = Math.sqrt((this.px - circle.px) * (this.px - circle.px) + (this.py - circle.py) * (this.py - circle.py));
+        // Check that line formed by velocity vector, intersects with line segment
+        double fLineX1 = segments.dx[i];
+        double fLineY1 = segments.dy[i];
 
-            // Normal
-            double nx = (circle.px - this.px) / fDistance;
-            double ny = (circle.py - this.py) / fDistance;
+        double fLineX2 = this.px - sx;
+        double fLineY2 = this.py - sy;
 
-            // Tangent
-            double tx = -ny;
-            double ty = nx;
+        double t = Math.max(0, Math.min(1, (fLineX1 * fLineX2 + fLineY1 * fLineY2) * segments.invLengthSq[i]));
 
-            // Dot Product Tangent
-            double dpTan1 = this.vx * tx + this.vy * ty;
-            double dpTan2 = circle.vx * tx + circle.vy * ty;
+        double fClosestPointX = sx + t * fLineX1;
+        double fClosestPointY = sy + t * fLineY1;
 
-            // Dot Product Normal
-            double dpNorm1 = this.vx * nx + this.vy * ny;
-            double dpNorm2 = circle.vx * nx + circle.vy * ny;
+        double fDistance = Math.sqrt((this.px - fClosestPointX) * (this.px - fClosestPointX) + (this.py - fClosestPointY) * (this.py - fClosestPointY));
 
-            // Conservation of momentum in 1D
-            double m1 = (dpNorm1 * (this.mass - circle.mass) + 1.35f * circle.mass * dpNorm2) / (this.mass + circle.mass);
-            double m2 = (dpNorm2 * (circle.mass - this.mass) + 1.35f * this.mass * dpNorm1) / (this.mass + circle.mass);
+        if (fDistance <= (this.radius + segmentRadius)) {
+            this.addContact(fClosestPointX, fClosestPointY);
 
-            // Update ball velocities
-            this.vx = tx * dpTan1 + nx * m1;
-            this.vy = ty * dpTan1 + ny * m1;
-            circle.vx = tx * dpTan2 + nx * m2;
-            circle.vy = ty * dpTan2 + ny * m2;
+            double fOverlap = 1.0f * (fDistance - this.radius - segmentRadius);
+
+            this.px -= fOverlap * (this.px - fClosestPointX) / fDistance;
+            this.py -= fOverlap * (this.py - fClosestPointY) / fDistance;
         }
+    }
 
-        collidedCircles.clear();
-        fakeBalls.clear();
+    /**
+     * Record a segment point as a static circle moving against the ball
+     *
+     * @param x contact x position
+     * @param y contact y position
+     */
+    private void addContact(double x, double y) {
+        contacts++;
+
+        if (contactCount == contactX.length) {
+            int capacity = contactCount * 2;
+            contactX = Arrays.copyOf(contactX, capacity);
+            contactY = Arrays.copyOf(contactY, capacity);
+            contactVx = Arrays.copyOf(contactVx, capacity);
+            contactVy = Arrays.copyOf(contactVy, capacity);
+            contactMass = Arrays.copyOf(contactMass, capacity);
+        }
+
+        contactX[contactCount] = x;
+        contactY[contactCount] = y;
+        contactVx[contactCount] = -this.vx;
+        contactVy[contactCount] = -this.vy;
+        contactMass[contactCount] = this.mass * 0.8;
+        contactCount++;
+    }
+
+    /**
+     * Bounce off a recorded line segment contact, only this circle's velocity changes
+     *
+     * @param k index of the contact
+     */
+    private void respondToContact(int k) {
+        // Distance between ball and contact point
+        double fDistance = Math.sqrt((this.px - contactX[k]) * (this.px - contactX[k]) + (this.py - contactY[k]) * (this.py - contactY[k]));
+
+        // Normal
+        double nx = (contactX[k] - this.px) / fDistance;
+        double ny = (contactY[k] - this.py) / fDistance;
+
+        // Tangent
+        double tx = -ny;
+        double ty = nx;
+
+        // Dot Product Tangent
+        double dpTan1 = this.vx * tx + this.vy * ty;
+
+        // Dot Product Normal
+        double dpNorm1 = this.vx * nx + this.vy * ny;
+        double dpNorm2 = contactVx[k] * nx + contactVy[k] * ny;
+
+        // Conservation of momentum in 1D
+        double m1 = (dpNorm1 * (this.mass - contactMass[k]) + 1.35f * contactMass[k] * dpNorm2) / (this.mass + contactMass[k]);
+
+        // Update ball velocity
+        this.vx = tx * dpTan1 + nx * m1;
+        this.vy = ty * dpTan1 + ny * m1;
     }
 
     /**
@@ -320,21 +905,15 @@ public class Circle {
     }
 
     /**
-     * Rotate player around midpoint
+     * Rotate player around midpoint by the rotation of the current frame
      *
-     * @param clockWise Rotation direction
-     * @param flip      Flip or rotate
+     * @param transform maze transform holding the cached rotation
      */
-    private void rotateAroundMidPoint(boolean clockWise, boolean flip) {
-        double rotation = 0.01;
-
-        if (!clockWise)
-            rotation *= (-1);
-
-        if (flip)
-            rotation = Math.PI;
+    public void rotateAroundMidPoint(MazeTransform transform) {
+        double x = this.px;
+        double y = this.py;
 
-        this.px = midPointX + (this.px - midPointX) * Math.cos(rotation) - (this.py - midPointY) * Math.sin(rotation);
-        this.py = midPointY + (this.px - midPointX) * Math.sin(rotation) + (this.py - midPointY) * Math.cos(rotation);
+        this.px = transform.stepX(x, y);
+        this.py = transform.stepY(x, y);
     }
 }
\ No newline at end of file
@@ -0,0 +1,493 @@
+package scripts.GameObject;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import scripts.Other.Config;
+import scripts.Physics.MazeTransform;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public class SegmentStore {
+
+    /**
+     * Amount of segments, the columns may hold room for more
+     */
+    private int size;
+
+    /**
+     * Unrotated start positions in the maze frame
+     */
+    public final double[] bsx, bsy;
+
+    /**
+     * Unrotated end positions in the maze frame
+     */
+    public final double[] bex, bey;
+
+    /**
+     * Current start positions, shared with the base arrays while the maze never rotates
+     */
+    public final double[] sx, sy;
+
+    /**
+     * Current end positions, shared with the base arrays while the maze never rotates
+     */
+    public final double[] ex, ey;
+
+    /**
+     * Current edge vectors (end - start)
+     */
+    public final double[] dx, dy;
+
+    /**
+     * Inverse squared edge lengths, 0 for degenerate segments
+     */
+    public final double[] invLengthSq;
+
+    /**
+     * Segment radii
+     */
+    public final double[] radius;
+
+    /**
+     * Segment colors, shared instances
+     */
+    private final Color[] color;
+
+    /**
+     * Largest segment radius
+     */
+    private double maxRadius;
+
+    /**
+     * Incremented whenever segments are added or removed
+     */
+    private int version;
+
+    /**
+     * Pack line segments into primitive arrays
+     *
+     * @param lineSegments segments in maze-local coordinates
+     */
+    public SegmentStore(List<LineSegment> lineSegments) {
+        this(
+                column(lineSegments, ls -> ls.sx),
+                column(lineSegments, ls -> ls.sy),
+                column(lineSegments, ls -> ls.ex),
+                column(lineSegments, ls -> ls.ey),
+                column(lineSegments, ls -> ls.radius),
+                lineSegments.stream().map(LineSegment::getColor).toArray(Color[]::new)
+        );
+    }
+
+    /**
+     * Take ownership of packed segment columns
+     *
+     * @param bsx    start x positions in maze-local coordinates
+     * @param bsy    start y positions in maze-local coordinates
+     * @param bex    end x positions in maze-local coordinates
+     * @param bey    end y positions in maze-local coordinates
+     * @param radius radii
+     * @param color  colors
+     */
+    public SegmentStore(double[] bsx, double[] bsy, double[] bex, double[] bey, double[] radius, Color[] color) {
+        this(bsx, bsy, bex, bey, radius, color, bsx.length);
+    }
+
+    /**
+     * Create an empty store with room for segments that are added later
+     *
+     * @param capacity most segments held without growing
+     */
+    public SegmentStore(int capacity) {
+        this(new double[capacity], new double[capacity], new double[capacity], new double[capacity],
+                new double[capacity], new Color[capacity], 0);
+    }
+
+    /**
+     * Take ownership of packed segment columns, of which the first size entries are segments
+     *
+     * @param bsx    start x positions in maze-local coordinates
+     * @param bsy    start y positions in maze-local coordinates
+     * @param bex    end x positions in maze-local coordinates
+     * @param bey    end y positions in maze-local coordinates
+     * @param radius radii
+     * @param color  colors
+     * @param size   amount of segments
+     */
+    private SegmentStore(double[] bsx, double[] bsy, double[] bex, double[] bey, double[] radius, Color[] color, int size) {
+        this.size = size;
+        this.bsx = bsx;
+        this.bsy = bsy;
+        this.bex = bex;
+        this.bey = bey;
+        this.radius = radius;
+        this.color = color;
+        this.dx = new double[bsx.length];
+        this.dy = new double[bsx.length];
+        this.invLengthSq = new double[bsx.length];
+
+        double largest = 0;
+        for (int i = 0; i < size; i++) {
+            dx[i] = bex[i] - bsx[i];
+            dy[i] = bey[i] - bsy[i];
+
+            double lengthSq = dx[i] * dx[i] + dy[i] * dy[i];
+            invLengthSq[i] = lengthSq > 0 ? 1.0 / lengthSq : 0;
+
+            largest = Math.max(largest, radius[i]);
+        }
+        this.maxRadius = largest;
+
+        // A fixed maze never rewrites its geometry, so current and base positions can share storage
+        if (Config.rotateGravity) {
+            this.sx = bsx;
+            this.sy = bsy;
+            this.ex = bex;
+            this.ey = bey;
+        } else {
+            this.sx = bsx.clone();
+            this.sy = bsy.clone();
+            this.ex = bex.clone();
+            this.ey = bey.clone();
+        }
+    }
+
+    /**
+     * Create a store with its own current positions over the same unrotated geometry
+     *
+     * @return independent segment store
+     */
+    public SegmentStore copy() {
+        return new SegmentStore(bsx, bsy, bex, bey, radius, color, size);
+    }
+
+    /**
+     * Create a store with room for more segments, holding the segments and current positions of this one
+     *
+     * @param capacity most segments held without growing
+     * @return larger segment store
+     */
+    public SegmentStore grow(int capacity) {
+        SegmentStore grown = new SegmentStore(capacity);
+        grown.append(this, 0, size);
+        return grown;
+    }
+
+    /**
+     * Append the segments of another store, rotated to the current angle
+     *
+     * @param source    segments to append
+     * @param transform maze transform holding the cached rotation
+     * @return index of the first appended segment
+     */
+    public int append(SegmentStore source, MazeTransform transform) {
+        int from = size;
+        append(source, 0, source.size);
+
+        if (sx != bsx) {
+            for (int i = from; i < size; i++)
+                rotate(i, transform);
+        }
+        return from;
+    }
+
+    /**
+     * Copy a range of segments from another store to the end of this one, keeping their current positions
+     *
+     * @param source segments to copy
+     * @param from   first segment to copy
+     * @param count  amount of segments
+     */
+    private void append(SegmentStore source, int from, int count) {
+        if (size + count > bsx.length)
+            throw new IllegalStateException("Segment store holds " + bsx.length + " segments, " + (size + count) + " requested");
+
+        copy(source, from, this, size, count);
+        for (int i = from; i < from + count; i++)
+            maxRadius = Math.max(maxRadius, source.radius[i]);
+
+        size += count;
+        version++;
+    }
+
+    /**
+     * Remove a range of segments, moving the segments behind it forward
+     *
+     * @param from  first segment to remove
+     * @param count amount of segments
+     */
+    public void remove(int from, int count) {
+        copy(this, from + count, this, from, size - from - count);
+        size -= count;
+        version++;
+    }
+
+    /**
+     * Copy every column of a range of segments
+     *
+     * @param source store to copy from
+     * @param from   first segment in the source
+     * @param target store to copy to
+     * @param to     first segment in the target
+     * @param count  amount of segments
+     */
+    private static void copy(SegmentStore source, int from, SegmentStore target, int to, int count) {
+        for (double[][] columns : new double[][][]{
+                {source.bsx, target.bsx}, {source.bsy, target.bsy}, {source.bex, target.bex}, {source.bey, target.bey},
+                {source.dx, target.dx}, {source.dy, target.dy}, {source.invLengthSq, target.invLengthSq}, {source.radius, target.radius}})
+            System.arraycopy(columns[0], from, columns[1], to, count);
+        System.arraycopy(source.color, from, target.color, to, count);
+
+        // Current positions alias the base columns while the maze never rotates
+        if (target.sx != target.bsx) {
+            System.arraycopy(source.sx, from, target.sx, to, count);
+            System.arraycopy(source.sy, from, target.sy, to, count);
+            System.arraycopy(source.ex, from, target.ex, to, count);
+            System.arraycopy(source.ey, from, target.ey, to, count);
+        }
+    }
+
+    /**
+     * Read a segment table written by write()
+     *
+     * @param buffer buffer positioned at the table
+     * @return segment store
+     */
+    public static SegmentStore read(ByteBuffer buffer) {
+        int n = buffer.getInt();
+        if (n < 0 || (long) n * (5 * Double.BYTES + Integer.BYTES) > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        double[][] columns = new double[5][n];
+        for (double[] column : columns) {
+            buffer.asDoubleBuffer().get(column);
+            buffer.position(buffer.position() + n * Double.BYTES);
+        }
+
+        // Colors are shared instances again after loading
+        HashMap<Integer, Color> palette = new HashMap<>();
+        Color[] color = new Color[n];
+        for (int i = 0; i < n; i++) {
+            int argb = buffer.getInt();
+            color[i] = palette.computeIfAbsent(argb, c -> Color.rgb((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF, ((c >>> 24) & 0xFF) / 255.0));
+        }
+
+        return new SegmentStore(columns[0], columns[1], columns[2], columns[3], columns[4], color);
+    }
+
+    /**
+     * Write the unrotated segment table
+     *
+     * @param buffer buffer to write to
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(size);
+        for (double[] column : new double[][]{bsx, bsy, bex, bey, radius}) {
+            buffer.asDoubleBuffer().put(column, 0, size);
+            buffer.position(buffer.position() + size * Double.BYTES);
+        }
+
+        for (int i = 0; i < size; i++)
+            buffer.putInt(argb(color[i]));
+    }
+
+    /**
+     * Pack a color into 8 bit ARGB, an exact key for sorting and grouping by color
+     *
+     * @param c color
+     * @return packed color
+     */
+    public static int argb(Color c) {
+        return (int) Math.round(c.getOpacity() * 255) << 24
+                | (int) Math.round(c.getRed() * 255) << 16
+                | (int) Math.round(c.getGreen() * 255) << 8
+                | (int) Math.round(c.getBlue() * 255);
+    }
+
+    /**
+     * Size of the table written by write()
+     *
+     * @return size in bytes
+     */
+    public int byteSize() {
+        return Integer.BYTES + size * (5 * Double.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Update rotations from the base geometry
+     *
+     * @param transform maze transform holding the cached rotation
+     */
+    public void update(MazeTransform transform) {
+        if (transform.hasRotated())
+            apply(transform);
+    }
+
+    /**
+     * Set rotated positions to the current angle, for geometry created after the maze has turned
+     *
+     * @param transform maze transform holding the cached rotation
+     */
+    public void apply(MazeTransform transform) {
+        if (sx == bsx)
+            return;
+
+        for (int i = 0; i < size; i++)
+            rotate(i, transform);
+    }
+
+    /**
+     * Set the rotated position of a single segment
+     *
+     * @param i         segment index
+     * @param transform maze transform holding the cached rotation
+     */
+    private void rotate(int i, MazeTransform transform) {
+        sx[i] = transform.toWorldX(bsx[i], bsy[i]);
+        sy[i] = transform.toWorldY(bsx[i], bsy[i]);
+        ex[i] = transform.toWorldX(bex[i], bey[i]);
+        ey[i] = transform.toWorldY(bex[i], bey[i]);
+        dx[i] = ex[i] - sx[i];
+        dy[i] = ey[i] - sy[i];
+    }
+
+    /**
+     * Draw line segments at their current position
+     *
+     * @param gc Graphics context of the canvas
+     * @return amount of canvas commands issued
+     */
+    public int draw(GraphicsContext gc) {
+        draw(gc, sx, sy, ex, ey);
+        return size * 6;
+    }
+
+    /**
+     * Draw line segments unrotated, in maze-local coordinates
+     *
+     * @param gc Graphics context to draw on
+     */
+    public void drawLocal(GraphicsContext gc) {
+        draw(gc, bsx, bsy, bex, bey);
+    }
+
+    /**
+     * Return segment color
+     *
+     * @param i segment index
+     * @return color
+     */
+    public Color getColor(int i) {
+        return color[i];
+    }
+
+    /**
+     * Draw a subset of line segments at their current position
+     *
+     * @param gc      Graphics context of the canvas
+     * @param indices segment indices
+     * @param count   amount of indices to draw
+     * @return amount of canvas commands issued
+     */
+    public int draw(GraphicsContext gc, int[] indices, int count) {
+        for (int k = 0; k < count; k++)
+            draw(gc, indices[k], sx, sy, ex, ey);
+        return count * 6;
+    }
+
+    /**
+     * Draw line segments
+     *
+     * @param gc Graphics context to draw on
+     * @param sx start x positions
+     * @param sy start y positions
+     * @param ex end x positions
+     * @param ey end y positions
+     */
+    private void draw(GraphicsContext gc, double[] sx, double[] sy, double[] ex, double[] ey) {
+        for (int i = 0; i < size; i++)
+            draw(gc, i, sx, sy, ex, ey);
+    }
+
+    /**
+     * Draw a single line segment
+     *
+     * @param gc Graphics context to draw on
+     * @param i  segment index
+     * @param sx start x positions
+     * @param sy start y positions
+     * @param ex end x positions
+     * @param ey end y positions
+     */
+    private void draw(GraphicsContext gc, int i, double[] sx, double[] sy, double[] ex, double[] ey) {
+        double r = radius[i];
+        double width = r * 2;
+
+        gc.setStroke(color[i]);
+        gc.setFill(color[i]);
+
+        gc.fillOval(sx[i] - r, sy[i] - r, width, width);
+        gc.fillOval(ex[i] - r, ey[i] - r, width, width);
+
+        double nx = -(ey[i] - sy[i]);
+        double ny = (ex[i] - sx[i]);
+        double d = Math.sqrt(nx * nx + ny * ny);
+        nx /= d;
+        ny /= d;
+
+        gc.strokeLine((sx[i] + nx * r), (sy[i] + ny * r), (ex[i] + nx * r), (ey[i] + ny * r));
+        gc.strokeLine((sx[i] - nx * r), (sy[i] - ny * r), (ex[i] - nx * r), (ey[i] - ny * r));
+    }
+
+    /**
+     * Collect one coordinate of every segment
+     *
+     * @param lineSegments segments
+     * @param value        coordinate getter
+     * @return coordinate column
+     */
+    private static double[] column(List<LineSegment> lineSegments, ToDoubleFunction<LineSegment> value) {
+        return lineSegments.stream().mapToDouble(value).toArray();
+    }
+
+    /**
+     * Return largest segment radius
+     *
+     * @return largest radius
+     */
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Return amount of segments
+     *
+     * @return segment count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return most segments held without growing
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return bsx.length;
+    }
+
+    /**
+     * Return modification count, changes whenever segments are added or removed
+     *
+     * @return version
+     */
+    public int getVersion() {
+        return version;
+    }
+}
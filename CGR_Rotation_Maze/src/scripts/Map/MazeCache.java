@@ -0,0 +1,185 @@
+package scripts.Map;
+
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.SegmentGrid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+public class MazeCache {
+
+    /**
+     * File magic ("CGRM")
+     */
+    private static final int MAGIC = 0x4347524D;
+
+    /**
+     * Format version, bump whenever the layout changes
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Length of the source key
+     */
+    private static final int KEY_LENGTH = 32;
+
+    /**
+     * Packed segment geometry
+     */
+    private final SegmentStore segments;
+
+    /**
+     * Spatial index over the segments
+     */
+    private final SegmentGrid grid;
+
+    /**
+     * Constructor
+     *
+     * @param segments packed segment geometry
+     * @param grid     spatial index over the segments
+     */
+    private MazeCache(SegmentStore segments, SegmentGrid grid) {
+        this.segments = segments;
+        this.grid = grid;
+    }
+
+    /**
+     * Key of a maze source: SHA-256 over the image bytes, the extraction and compaction algorithm versions and every
+     * setting that shapes the extracted geometry
+     *
+     * @param source raw image bytes
+     * @return key
+     */
+    public static byte[] key(byte[] source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source);
+            digest.update((MazeExtractor.VERSION + ":" + MazeCompactor.VERSION + ":"
+                    + Config.CANVAS_WIDTH + ":" + Config.CANVAS_HEIGHT + ":" + Config.SEGMENT_GRID_CELL_SIZE + ":"
+                    + Config.compactMaze + ":" + Config.mergeParallelWalls + ":" + Config.WALL_MERGE_GAP)
+                    .getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cache file of a source key, so different mazes and settings never evict each other
+     *
+     * @param key key of the source
+     * @return cache file in the cache directory
+     */
+    public static Path file(byte[] key) {
+        return Config.MAZE_CACHE_DIR.resolve("maze-" + HexFormat.of().formatHex(key) + ".bin");
+    }
+
+    /**
+     * Map a cache file and read it, if it exists and was built from the same source
+     *
+     * <p>The mapping only serves as a fast read path: the columns are copied out in bulk into the heap arrays
+     * the physics works on, and the mapping is dropped once the maze is loaded.</p>
+     *
+     * @param file cache file
+     * @param key  key of the current source
+     * @return cached maze, or null if missing or stale
+     */
+    public static MazeCache read(Path file, byte[] key) {
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+
+            byte[] stored = new byte[KEY_LENGTH];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, key))
+                return null;
+
+            SegmentStore segments = SegmentStore.read(buffer);
+            SegmentGrid grid = SegmentGrid.read(buffer, segments);
+            return new MazeCache(segments, grid);
+        } catch (IOException | RuntimeException e) {
+            // Unreadable or truncated caches are rebuilt from the image
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Write a cache file, replacing any previous one atomically
+     *
+     * @param file     cache file
+     * @param key      key of the source
+     * @param segments packed segment geometry
+     * @param grid     spatial index over the segments
+     */
+    public static void write(Path file, byte[] key, SegmentStore segments, SegmentGrid grid) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + KEY_LENGTH + segments.byteSize() + grid.byteSize());
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.put(key);
+        segments.write(buffer);
+        grid.write(buffer);
+        buffer.flip();
+
+        Path temp = null;
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+
+            // Other processes either see the old file or the complete new one
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            // Leave no partial temp files behind
+            try {
+                if (temp != null)
+                    Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                cleanup.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Return packed segment geometry
+     *
+     * @return segment store
+     */
+    public SegmentStore getSegments() {
+        return segments;
+    }
+
+    /**
+     * Return spatial index over the segments
+     *
+     * @return segment grid
+     */
+    public SegmentGrid getGrid() {
+        return grid;
+    }
+}
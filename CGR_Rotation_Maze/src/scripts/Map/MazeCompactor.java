@@ -0,0 +1,274 @@
+package scripts.Map;
+
+import javafx.scene.paint.Color;
+import scripts.GameObject.LineSegment;
+import scripts.GameObject.SegmentStore;
+import scripts.Physics.SegmentGrid;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+public class MazeCompactor {
+
+    /**
+     * Algorithm version, bump whenever the compacted geometry or its order changes, it is part of the cache key
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Tolerance for comparing extracted coordinates
+     */
+    private static final double epsilon = 1e-9;
+
+    /**
+     * Utility class
+     */
+    private MazeCompactor() {
+    }
+
+    /**
+     * Drop degenerate segments and merge overlapping or touching collinear runs
+     *
+     * @param lineSegments extracted segments
+     * @param mergeWalls   replace stacks of parallel lines by a single thick wall
+     * @param maxWallGap   largest distance between stacked lines of one wall
+     * @return compacted segments
+     */
+    public static List<LineSegment> compact(List<LineSegment> lineSegments, boolean mergeWalls, double maxWallGap) {
+        ArrayList<LineSegment> horizontal = new ArrayList<>();
+        ArrayList<LineSegment> vertical = new ArrayList<>();
+        ArrayList<LineSegment> result = new ArrayList<>();
+
+        for (LineSegment ls : lineSegments) {
+            boolean flatY = Math.abs(ls.sy - ls.ey) < epsilon;
+            boolean flatX = Math.abs(ls.sx - ls.ex) < epsilon;
+
+            if (flatX && flatY)
+                continue;
+
+            if (flatY)
+                horizontal.add(ls);
+            else if (flatX)
+                vertical.add(ls);
+            else
+                result.add(ls);
+        }
+
+        horizontal = mergeCollinear(horizontal, true);
+        vertical = mergeCollinear(vertical, false);
+
+        if (mergeWalls) {
+            ArrayList<LineSegment> walls = new ArrayList<>();
+            walls.addAll(mergeParallel(horizontal, true, maxWallGap));
+            walls.addAll(mergeParallel(vertical, false, maxWallGap));
+            result.addAll(dropCovered(walls));
+        } else {
+            result.addAll(horizontal);
+            result.addAll(vertical);
+        }
+
+        return result;
+    }
+
+    /**
+     * Merge axis aligned segments on the same line with the same radius and color
+     *
+     * @param segments   axis aligned segments
+     * @param horizontal segments run along x
+     * @return merged segments
+     */
+    private static ArrayList<LineSegment> mergeCollinear(ArrayList<LineSegment> segments, boolean horizontal) {
+        segments.sort(Comparator
+                .comparingDouble((LineSegment ls) -> axis(ls, horizontal))
+                .thenComparingDouble(ls -> ls.radius)
+                .thenComparingInt(ls -> SegmentStore.argb(ls.getColor()))
+                .thenComparingDouble(ls -> start(ls, horizontal)));
+
+        ArrayList<LineSegment> merged = new ArrayList<>();
+        LineSegment current = null;
+        double from = 0, to = 0;
+
+        for (LineSegment ls : segments) {
+            if (current != null && sameLine(current, ls, horizontal) && start(ls, horizontal) <= to + epsilon) {
+                to = Math.max(to, end(ls, horizontal));
+                continue;
+            }
+
+            if (current != null)
+                merged.add(build(current, from, to, axis(current, horizontal), current.radius, horizontal));
+
+            current = ls;
+            from = start(ls, horizontal);
+            to = end(ls, horizontal);
+        }
+
+        if (current != null)
+            merged.add(build(current, from, to, axis(current, horizontal), current.radius, horizontal));
+
+        return merged;
+    }
+
+    /**
+     * Replace stacks of parallel lines with identical extents by one thick centre line
+     *
+     * @param segments   merged axis aligned segments
+     * @param horizontal segments run along x
+     * @param maxWallGap largest distance between neighbouring lines of a stack
+     * @return walls
+     */
+    private static ArrayList<LineSegment> mergeParallel(ArrayList<LineSegment> segments, boolean horizontal, double maxWallGap) {
+        // Stack lines with the same extent, ordered by their position across the wall
+        HashMap<String, ArrayList<LineSegment>> stacks = new HashMap<>();
+        for (LineSegment ls : segments) {
+            String key = start(ls, horizontal) + ":" + end(ls, horizontal) + ":" + ls.radius + ":" + ls.getColor();
+            stacks.computeIfAbsent(key, k -> new ArrayList<>()).add(ls);
+        }
+
+        ArrayList<LineSegment> walls = new ArrayList<>();
+        for (ArrayList<LineSegment> stack : stacks.values()) {
+            stack.sort(Comparator.comparingDouble(ls -> axis(ls, horizontal)));
+
+            int first = 0;
+            for (int i = 1; i <= stack.size(); i++) {
+                if (i < stack.size() && axis(stack.get(i), horizontal) - axis(stack.get(i - 1), horizontal) <= maxWallGap + epsilon)
+                    continue;
+
+                LineSegment a = stack.get(first);
+                double lo = axis(a, horizontal);
+                double hi = axis(stack.get(i - 1), horizontal);
+
+                // A stack wider than long is a block of stubs, its round caps would overshoot the pixels
+                if (hi - lo <= end(a, horizontal) - start(a, horizontal)) {
+                    walls.add(build(a, start(a, horizontal), end(a, horizontal), (lo + hi) / 2, a.radius + (hi - lo) / 2, horizontal));
+                } else {
+                    walls.addAll(stack.subList(first, i));
+                }
+                first = i;
+            }
+        }
+
+        return walls;
+    }
+
+    /**
+     * Drop walls that lie completely inside another, thicker wall
+     *
+     * @param walls walls
+     * @return remaining walls
+     */
+    private static ArrayList<LineSegment> dropCovered(ArrayList<LineSegment> walls) {
+        SegmentStore store = new SegmentStore(walls);
+        SegmentGrid grid = new SegmentGrid(store, 16);
+        int[] candidates = new int[64];
+
+        ArrayList<LineSegment> kept = new ArrayList<>();
+        for (int i = 0; i < walls.size(); i++) {
+            LineSegment ls = walls.get(i);
+
+            double loX = Math.min(ls.sx, ls.ex), hiX = Math.max(ls.sx, ls.ex);
+            double loY = Math.min(ls.sy, ls.ey), hiY = Math.max(ls.sy, ls.ey);
+
+            int n = grid.query(loX, loY, hiX, hiY, candidates);
+            if (n < 0) {
+                candidates = new int[-n];
+                n = grid.query(loX, loY, hiX, hiY, candidates);
+            }
+
+            boolean covered = false;
+            for (int k = 0; k < n && !covered; k++) {
+                int j = candidates[k];
+                covered = j != i && store.radius[j] > ls.radius
+                        && inside(store, j, ls.sx, ls.sy, ls.radius)
+                        && inside(store, j, ls.ex, ls.ey, ls.radius);
+            }
+
+            if (!covered)
+                kept.add(ls);
+        }
+
+        return kept;
+    }
+
+    /**
+     * Whether a disc lies inside the capsule of a stored segment
+     *
+     * @param store  segment store
+     * @param j      segment index
+     * @param x      disc x position
+     * @param y      disc y position
+     * @param radius disc radius
+     * @return disc is covered
+     */
+    private static boolean inside(SegmentStore store, int j, double x, double y, double radius) {
+        double t = Math.max(0, Math.min(1, ((x - store.sx[j]) * store.dx[j] + (y - store.sy[j]) * store.dy[j]) * store.invLengthSq[j]));
+        double cx = store.sx[j] + t * store.dx[j] - x;
+        double cy = store.sy[j] + t * store.dy[j] - y;
+        return Math.sqrt(cx * cx + cy * cy) + radius <= store.radius[j] + epsilon;
+    }
+
+    /**
+     * Whether two axis aligned segments can be merged
+     *
+     * @param a          first segment
+     * @param b          second segment
+     * @param horizontal segments run along x
+     * @return same line, radius and color
+     */
+    private static boolean sameLine(LineSegment a, LineSegment b, boolean horizontal) {
+        return Math.abs(axis(a, horizontal) - axis(b, horizontal)) < epsilon && a.radius == b.radius
+                && SegmentStore.argb(a.getColor()) == SegmentStore.argb(b.getColor());
+    }
+
+    /**
+     * Create an axis aligned segment in maze coordinates
+     *
+     * @param template   segment to copy the color from
+     * @param from       start along the line
+     * @param to         end along the line
+     * @param axis       position across the line
+     * @param radius     radius
+     * @param horizontal segment runs along x
+     * @return segment
+     */
+    private static LineSegment build(LineSegment template, double from, double to, double axis, double radius, boolean horizontal) {
+        Color color = template.getColor();
+        return horizontal
+                ? new LineSegment(from, axis, to, axis, radius, false, color)
+                : new LineSegment(axis, from, axis, to, radius, false, color);
+    }
+
+    /**
+     * Position across an axis aligned segment
+     *
+     * @param ls         segment
+     * @param horizontal segment runs along x
+     * @return position
+     */
+    private static double axis(LineSegment ls, boolean horizontal) {
+        return horizontal ? ls.sy : ls.sx;
+    }
+
+    /**
+     * Smaller coordinate along an axis aligned segment
+     *
+     * @param ls         segment
+     * @param horizontal segment runs along x
+     * @return start coordinate
+     */
+    private static double start(LineSegment ls, boolean horizontal) {
+        return horizontal ? Math.min(ls.sx, ls.ex) : Math.min(ls.sy, ls.ey);
+    }
+
+    /**
+     * Larger coordinate along an axis aligned segment
+     *
+     * @param ls         segment
+     * @param horizontal segment runs along x
+     * @return end coordinate
+     */
+    private static double end(LineSegment ls, boolean horizontal) {
+        return horizontal ? Math.max(ls.sx, ls.ex) : Math.max(ls.sy, ls.ey);
+    }
+}
@@ -0,0 +1,213 @@
+package scripts.Map;
+
+import scripts.GameObject.LineSegment;
+import scripts.Other.Config;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+public class MazeExtractor {
+
+    /**
+     * Algorithm version, bump whenever the extracted geometry or its order changes, it is part of the cache key
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Opaque black wall pixel
+     */
+    private static final int WALL = -16777216;
+
+    /**
+     * Transparent background pixel
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * Utility class
+     */
+    private MazeExtractor() {
+    }
+
+    /**
+     * Extract horizontal and vertical wall runs of a maze image
+     *
+     * @param bf maze image
+     * @return line segments in the order rows first, then columns
+     */
+    public static List<LineSegment> extract(BufferedImage bf) {
+        int width = bf.getWidth();
+        int height = bf.getHeight();
+        int[] pixels = readPixels(bf);
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<LineSegment>[] rows = new List[height];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<LineSegment>[] cols = new List[width];
+        int[] rowCarry = new int[height];
+        int[] colCarry = new int[width];
+
+        // Every row and column is first scanned as if it started fresh, so both passes can run side by side
+        if ((long) width * height >= Config.PARALLEL_EXTRACTION_PIXELS) {
+            CompletableFuture<Void> rowPass = CompletableFuture.runAsync(() ->
+                    IntStream.range(0, height).parallel().forEach(row -> {
+                        rows[row] = new ArrayList<>();
+                        rowCarry[row] = scanRow(pixels, width, row, -1, rows[row]);
+                    }));
+            IntStream.range(0, width).parallel().forEach(col -> {
+                cols[col] = new ArrayList<>();
+                colCarry[col] = scanColumn(pixels, width, height, col, -1, cols[col]);
+            });
+            rowPass.join();
+        } else {
+            for (int row = 0; row < height; row++) {
+                rows[row] = new ArrayList<>();
+                rowCarry[row] = scanRow(pixels, width, row, -1, rows[row]);
+            }
+            for (int col = 0; col < width; col++) {
+                cols[col] = new ArrayList<>();
+                colCarry[col] = scanColumn(pixels, width, height, col, -1, cols[col]);
+            }
+        }
+
+        // A wall run left open at the end of a line continues into the next one, those few lines are scanned again
+        int carry = -1;
+        for (int row = 0; row < height; row++) {
+            if (carry != -1) {
+                rows[row] = new ArrayList<>();
+                rowCarry[row] = scanRow(pixels, width, row, carry, rows[row]);
+            }
+            carry = rowCarry[row];
+        }
+
+        carry = -1;
+        for (int col = 0; col < width; col++) {
+            if (carry != -1) {
+                cols[col] = new ArrayList<>();
+                colCarry[col] = scanColumn(pixels, width, height, col, carry, cols[col]);
+            }
+            carry = colCarry[col];
+        }
+
+        ArrayList<LineSegment> lineSegments = new ArrayList<>();
+        for (List<LineSegment> row : rows)
+            lineSegments.addAll(row);
+        for (List<LineSegment> col : cols)
+            lineSegments.addAll(col);
+
+        return lineSegments;
+    }
+
+    /**
+     * Read all pixels as ARGB, straight from the backing buffer when the image already stores packed ARGB
+     *
+     * @param bf image
+     * @return row major ARGB pixels
+     */
+    private static int[] readPixels(BufferedImage bf) {
+        int width = bf.getWidth();
+        int height = bf.getHeight();
+
+        if (bf.getType() == BufferedImage.TYPE_INT_ARGB
+                && bf.getRaster().getDataBuffer() instanceof DataBufferInt
+                && bf.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel
+                && ((SinglePixelPackedSampleModel) bf.getRaster().getSampleModel()).getScanlineStride() == width
+                && bf.getRaster().getDataBuffer().getOffset() == 0
+                && bf.getRaster().getSampleModelTranslateX() == 0
+                && bf.getRaster().getSampleModelTranslateY() == 0) {
+            return ((DataBufferInt) bf.getRaster().getDataBuffer()).getData();
+        }
+
+        // One bulk conversion through the color model instead of one per pixel access
+        return bf.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Get horizontal lines of a row
+     *
+     * @param pixels       row major ARGB pixels
+     * @param width        image width
+     * @param row          row to scan
+     * @param carry        start of a wall run left open by the previous row, -1 if none
+     * @param lineSegments list the line segments are added to
+     * @return start of a wall run left open at the end of the row, -1 if none
+     */
+    private static int scanRow(int[] pixels, int width, int row, int carry, List<LineSegment> lineSegments) {
+        int offset = row * width;
+        int val1 = carry;
+        int val2 = -1;
+
+        for (int col = 0; col < width; col++) {
+            int pixel = pixels[offset + col];
+
+            if (pixel == WALL && val1 != -1) {
+                val2 = col;
+            }
+
+            if (pixel == WALL && val1 == -1 && col != width - 1 && pixels[offset + col + 1] != EMPTY) {
+                val1 = col;
+            }
+
+            if (pixel == EMPTY && val2 != -1) {
+                lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
+                val1 = -1;
+                val2 = -1;
+            }
+        }
+
+        // Full horizontal line for row
+        if (val1 != val2 && val1 * val2 >= 0) {
+            lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
+            return -1;
+        }
+
+        return val1;
+    }
+
+    /**
+     * Get vertical lines of a column
+     *
+     * @param pixels       row major ARGB pixels
+     * @param width        image width
+     * @param height       image height
+     * @param col          column to scan
+     * @param carry        start of a wall run left open by the previous column, -1 if none
+     * @param lineSegments list the line segments are added to
+     * @return start of a wall run left open at the end of the column, -1 if none
+     */
+    private static int scanColumn(int[] pixels, int width, int height, int col, int carry, List<LineSegment> lineSegments) {
+        int val1 = carry;
+        int val2 = -1;
+
+        for (int row = 0; row < height; row++) {
+            int pixel = pixels[row * width + col];
+
+            if (pixel == WALL && val1 != -1) {
+                val2 = row;
+            }
+
+            if (pixel == WALL && val1 == -1 && row != height - 1 && pixels[(row + 1) * width + col] != EMPTY) {
+                val1 = row;
+            }
+
+            if (pixel == EMPTY && val2 != -1) {
+                lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
+                val1 = -1;
+                val2 = -1;
+            }
+        }
+
+        // Full vertical line for column
+        if (val1 != val2 && val1 * val2 >= 0) {
+            lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
+            return -1;
+        }
+
+        return val1;
+    }
+}
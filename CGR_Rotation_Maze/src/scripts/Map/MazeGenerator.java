@@ -0,0 +1,387 @@
+package scripts.Map;
+
+import scripts.GameObject.LineSegment;
+import scripts.Other.Config;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+public class MazeGenerator {
+
+    /**
+     * Prefix of maze resources that are generated instead of loaded, e.g. "generated:100x100:7" or "generated:1000x1000:7:40"
+     */
+    public static final String RESOURCE_PREFIX = "generated:";
+
+    /**
+     * Left and top edge of the generated maze, matching the borders of the bundled maze
+     */
+    private static final double origin = (double) Config.CANVAS_WIDTH / 5;
+
+    /**
+     * Side length the generated maze is fitted into
+     */
+    private static final double extent = Config.CANVAS_WIDTH - 2 * origin;
+
+    /**
+     * Largest ball radius, the size of the player in the bundled maze
+     */
+    private static final double maxBallRadius = 7;
+
+    /**
+     * Cells per row
+     */
+    private final int cols;
+
+    /**
+     * Cells per column
+     */
+    private final int rows;
+
+    /**
+     * Seed of the passage layout
+     */
+    private final long seed;
+
+    /**
+     * Side length of a cell
+     */
+    private final double cellSize;
+
+    /**
+     * Wall to the right of every cell, null until carved
+     */
+    private BitSet rightWall;
+
+    /**
+     * Wall below every cell, null until carved
+     */
+    private BitSet bottomWall;
+
+    /**
+     * Constructor for a maze fitted into the canvas
+     *
+     * @param cols cells per row
+     * @param rows cells per column
+     * @param seed seed of the passage layout
+     */
+    public MazeGenerator(int cols, int rows, long seed) {
+        this(cols, rows, seed, extent / Math.max(cols, rows));
+    }
+
+    /**
+     * Constructor for a maze of fixed cell size, larger mazes reach past the canvas
+     *
+     * @param cols     cells per row
+     * @param rows     cells per column
+     * @param seed     seed of the passage layout
+     * @param cellSize side length of a cell
+     */
+    public MazeGenerator(int cols, int rows, long seed, double cellSize) {
+        if (cols < 1 || rows < 1)
+            throw new IllegalArgumentException("Maze needs at least one cell, got " + cols + "x" + rows);
+
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Parse a generated maze resource
+     *
+     * @param resource maze resource, "generated:COLSxROWS[:SEED[:CELL_SIZE]]"
+     * @return generator, null if the resource is not a generated maze
+     */
+    public static MazeGenerator fromResource(String resource) {
+        if (!resource.startsWith(RESOURCE_PREFIX))
+            return null;
+
+        String[] parts = resource.substring(RESOURCE_PREFIX.length()).split(":");
+        String[] size = parts[0].split("x");
+        int cols = Integer.parseInt(size[0]);
+        int rows = size.length > 1 ? Integer.parseInt(size[1]) : cols;
+        long seed = parts.length > 1 ? Long.parseLong(parts[1]) : 1;
+
+        if (parts.length > 2)
+            return new MazeGenerator(cols, rows, seed, Double.parseDouble(parts[2]));
+        return new MazeGenerator(cols, rows, seed);
+    }
+
+    /**
+     * Carve the maze and emit all of its walls
+     *
+     * <p>Walls are merged into one segment per straight run, the outer wall stays open below the exit cell.</p>
+     *
+     * @return wall segments in canvas coordinates
+     */
+    public List<LineSegment> generate() {
+        carve();
+        return getWalls(0, 0, cols, rows);
+    }
+
+    /**
+     * Carve a perfect maze with an iterative recursive backtracker, keeping 2 bits per cell
+     *
+     * <p>Does nothing once carved. Call before handing the generator to other threads.</p>
+     */
+    public void carve() {
+        if (rightWall != null)
+            return;
+
+        int cells = cols * rows;
+
+        // Wall to the right of and below every cell, all standing before carving
+        BitSet rightWall = new BitSet(cells);
+        BitSet bottomWall = new BitSet(cells);
+        rightWall.set(0, cells);
+        bottomWall.set(0, cells);
+
+        BitSet visited = new BitSet(cells);
+        int[] stack = new int[cells];
+        int[] neighbours = new int[4];
+        int depth = 0;
+        Random random = new Random(seed);
+
+        stack[depth++] = 0;
+        visited.set(0);
+
+        while (depth > 0) {
+            int cell = stack[depth - 1];
+            int col = cell % cols;
+            int row = cell / cols;
+            int count = 0;
+
+            if (col > 0 && !visited.get(cell - 1))
+                neighbours[count++] = cell - 1;
+            if (col < cols - 1 && !visited.get(cell + 1))
+                neighbours[count++] = cell + 1;
+            if (row > 0 && !visited.get(cell - cols))
+                neighbours[count++] = cell - cols;
+            if (row < rows - 1 && !visited.get(cell + cols))
+                neighbours[count++] = cell + cols;
+
+            if (count == 0) {
+                depth--;
+                continue;
+            }
+
+            int next = neighbours[random.nextInt(count)];
+            if (next == cell + 1)
+                rightWall.clear(cell);
+            else if (next == cell - 1)
+                rightWall.clear(next);
+            else if (next == cell + cols)
+                bottomWall.clear(cell);
+            else
+                bottomWall.clear(next);
+
+            visited.set(next);
+            stack[depth++] = next;
+        }
+
+        this.rightWall = rightWall;
+        this.bottomWall = bottomWall;
+    }
+
+    /**
+     * Turn the standing walls of a block of cells into segments, one per straight run inside the block
+     *
+     * <p>A block owns the lines above and left of its cells, the last row and column also own the bottom and
+     * right border, so adjacent blocks never emit the same wall.</p>
+     *
+     * @param fromCol first column of the block
+     * @param fromRow first row of the block
+     * @param toCol   column after the block
+     * @param toRow   row after the block
+     * @return wall segments in canvas coordinates
+     */
+    public List<LineSegment> getWalls(int fromCol, int fromRow, int toCol, int toRow) {
+        List<LineSegment> walls = new ArrayList<>();
+        double radius = getWallRadius();
+        int lastRow = toRow == rows ? rows : toRow - 1;
+        int lastCol = toCol == cols ? cols : toCol - 1;
+
+        // Horizontal lines, line 0 is the top border and line rows the bottom border
+        for (int line = fromRow; line <= lastRow; line++) {
+            int runStart = -1;
+
+            for (int col = fromCol; col <= toCol; col++) {
+                boolean wall = col < toCol && (line == 0
+                        || (line == rows ? col != cols - 1 : bottomWall.get((line - 1) * cols + col)));
+
+                if (wall && runStart < 0) {
+                    runStart = col;
+                } else if (!wall && runStart >= 0) {
+                    walls.add(new LineSegment(toCanvas(runStart), toCanvas(line), toCanvas(col), toCanvas(line), radius, false, Config.MAZE_COLOR));
+                    runStart = -1;
+                }
+            }
+        }
+
+        // Vertical lines, line 0 is the left border and line cols the right border
+        for (int line = fromCol; line <= lastCol; line++) {
+            int runStart = -1;
+
+            for (int row = fromRow; row <= toRow; row++) {
+                boolean wall = row < toRow && (line == 0 || line == cols || rightWall.get(row * cols + line - 1));
+
+                if (wall && runStart < 0) {
+                    runStart = row;
+                } else if (!wall && runStart >= 0) {
+                    walls.add(new LineSegment(toCanvas(line), toCanvas(runStart), toCanvas(line), toCanvas(row), radius, false, Config.MAZE_COLOR));
+                    runStart = -1;
+                }
+            }
+        }
+
+        return walls;
+    }
+
+    /**
+     * Convert a cell boundary to canvas coordinates
+     *
+     * @param line boundary index
+     * @return canvas coordinate
+     */
+    private double toCanvas(double line) {
+        return origin + line * cellSize;
+    }
+
+    /**
+     * Return cells per row
+     *
+     * @return columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Return cells per column
+     *
+     * @return rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Return side length of a cell
+     *
+     * @return cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Return left and top edge of the maze
+     *
+     * @return canvas coordinate
+     */
+    public double getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Return width of the maze with the margin on both sides
+     *
+     * @return canvas width for a fitted maze
+     */
+    public double getWidth() {
+        return toCanvas(cols) + origin;
+    }
+
+    /**
+     * Return height of the maze with the margin on both sides
+     *
+     * @return canvas height for a fitted maze
+     */
+    public double getHeight() {
+        return toCanvas(rows) + origin;
+    }
+
+    /**
+     * Return right outer wall of the maze
+     *
+     * @return canvas x
+     */
+    public double getRight() {
+        return toCanvas(cols);
+    }
+
+    /**
+     * Return bottom outer wall of the maze
+     *
+     * @return canvas y
+     */
+    public double getBottom() {
+        return toCanvas(rows);
+    }
+
+    /**
+     * Return wall radius, thinner for small cells
+     *
+     * @return radius
+     */
+    public double getWallRadius() {
+        return Math.min(1, cellSize * 0.1);
+    }
+
+    /**
+     * Return radius of the player, leaving room to pass between walls
+     *
+     * @return radius
+     */
+    public double getBallRadius() {
+        return Math.min(maxBallRadius, cellSize * 0.25);
+    }
+
+    /**
+     * Return radius of the exit marker, small enough for the player to pass it inside the exit cell
+     *
+     * @return radius
+     */
+    public double getMarkerRadius() {
+        return Math.min(maxBallRadius, cellSize * 0.1);
+    }
+
+    /**
+     * Return center x of the top left start cell
+     *
+     * @return canvas x
+     */
+    public double getStartX() {
+        return toCanvas(0.5);
+    }
+
+    /**
+     * Return center y of the top left start cell
+     *
+     * @return canvas y
+     */
+    public double getStartY() {
+        return toCanvas(0.5);
+    }
+
+    /**
+     * Return x of the exit marker, in the top right corner of the bottom right exit cell
+     *
+     * @return canvas x
+     */
+    public double getExitX() {
+        return toCanvas(cols) - getWallRadius() - getMarkerRadius();
+    }
+
+    /**
+     * Return y of the exit marker, away from the opening in the bottom wall of the exit cell
+     *
+     * @return canvas y
+     */
+    public double getExitY() {
+        return toCanvas(rows - 1) + getWallRadius() + getMarkerRadius();
+    }
+}
@@ -0,0 +1,277 @@
+package scripts.Map;
+
+import javafx.scene.paint.Color;
+import scripts.Events.MazeLoadEvent;
+import scripts.GameObject.Circle;
+import scripts.GameObject.LineSegment;
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.SegmentGrid;
+import scripts.Physics.World;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MazeLoader {
+
+    /**
+     * Classpath resource of the maze image
+     */
+    private final String resource;
+
+    /**
+     * Generator of the maze, null when it is loaded from an image
+     */
+    private final MazeGenerator generator;
+
+    /**
+     * Line segments collected while loading, packed into the segment store afterwards
+     */
+    private final ArrayList<LineSegment> lineSegments = new ArrayList<>();
+
+    /**
+     * Packed line segment geometry
+     */
+    private SegmentStore segments;
+
+    /**
+     * Spatial index over the line segments in maze-local coordinates
+     */
+    private SegmentGrid segmentGrid;
+
+    /**
+     * Geometry is streamed tile by tile instead of loaded at once
+     */
+    private boolean streamed;
+
+    /**
+     * Geometry of the last load came from the binary cache
+     */
+    private boolean loadedFromCache;
+
+    /**
+     * Constructor
+     *
+     * @param resource classpath resource of the maze image, or a generated maze such as "generated:100x100:7"
+     */
+    public MazeLoader(String resource) {
+        this.resource = resource;
+        this.generator = MazeGenerator.fromResource(resource);
+    }
+
+    /**
+     * Build a world with borders, maze and balls, without any UI
+     *
+     * @return world ready to be stepped
+     */
+    public World load() {
+        MazeLoadEvent loadEvent = new MazeLoadEvent();
+        loadEvent.begin();
+
+        if (generator != null) {
+            InitializeGeneratedMap();
+        } else {
+            InitializeLineSegments();
+            InitializeMap();
+        }
+
+        if (loadEvent.shouldCommit()) {
+            loadEvent.resource = resource;
+            loadEvent.fromCache = loadedFromCache;
+            loadEvent.segments = segments.size();
+            loadEvent.commit();
+        }
+
+        return createWorld();
+    }
+
+    /**
+     * Build another world over the geometry of the last load, sharing nothing that changes while stepping
+     *
+     * @return world ready to be stepped
+     */
+    public World createWorld() {
+        World world = streamed
+                ? new World(segments, segmentGrid)
+                : new World(segments.copy(), segmentGrid);
+        InitializeBalls(world);
+
+        if (generator != null)
+            world.setBounds(generator.getOrigin(), generator.getOrigin(), generator.getRight(), generator.getBottom());
+
+        // Tiles under the canvas and around the player, every world streams into its own cache
+        if (streamed)
+            world.setStreamer(new MazeStreamer(generator, Config.MAZE_TILE_CELLS, Config.MAZE_TILE_CACHE));
+
+        // Stress scene between the player start and the exit
+        if (Config.stressBalls > 0) {
+            int placed = StressScene.populate(world, Config.stressBalls, 1, 216, 216, 1000 - 225, 1000 - 219);
+            System.out.println("Stress balls: " + placed);
+        }
+
+        return world;
+    }
+
+    /**
+     * Initialize player ball and exit dot
+     *
+     * @param world world to add the balls to
+     */
+    private void InitializeBalls(World world) {
+        if (generator != null) {
+            world.addCircle(new Circle(generator.getStartX(), generator.getStartY(), generator.getBallRadius(), Color.RED, 0, 0, 100.0, false));
+            world.addCircle(new Circle(generator.getExitX(), generator.getExitY(), generator.getMarkerRadius(), Color.GREEN, 0, 0, 100.0, true));
+            return;
+        }
+
+        // Player Circle
+        world.addCircle(new Circle(
+                216,
+                216,
+                7,
+                Color.RED,
+                0,
+                0,
+                100.0,
+                false
+        ));
+
+        // Maze end visualization
+        world.addCircle(new Circle(
+                1000 - 225,
+                1000 - 219,
+                7,
+                Color.GREEN,
+                0,
+                0,
+                100.0,
+                true
+        ));
+    }
+
+    /**
+     * Initialize borders
+     */
+    private void InitializeLineSegments() {
+        // Borders
+        double limiter = (double) Config.CANVAS_WIDTH / 5;
+        double frame_radius = 1;
+
+        lineSegments.add(new LineSegment(
+                0 + limiter, 0 + limiter, Config.CANVAS_WIDTH - limiter, 0 + limiter, frame_radius, false, Config.FRAME_COLOR
+        )); // Top
+
+        lineSegments.add(new LineSegment(
+                Config.CANVAS_WIDTH - limiter,
+                0 + limiter,
+                Config.CANVAS_WIDTH - limiter,
+                Config.CANVAS_HEIGHT - limiter,
+                frame_radius,
+                false,
+                Config.FRAME_COLOR
+        )); // Right
+
+        lineSegments.add(new LineSegment(
+                0 + limiter,
+                Config.CANVAS_HEIGHT - limiter,
+                Config.CANVAS_WIDTH - limiter - 50,
+                Config.CANVAS_HEIGHT - limiter,
+                frame_radius,
+                false,
+                Config.FRAME_COLOR
+        )); // Bottom
+
+        lineSegments.add(new LineSegment(
+                0 + limiter,
+                0 + limiter,
+                0 + limiter,
+                Config.CANVAS_HEIGHT - limiter,
+                frame_radius,
+                false,
+                Config.FRAME_COLOR
+        )); // Left
+    }
+
+    /**
+     * Initialize generated maze, its outer walls replace the borders
+     */
+    private void InitializeGeneratedMap() {
+        loadedFromCache = false;
+        streamed = Config.streamMaze;
+
+        if (streamed) {
+            // Empty geometry until the first tiles arrive, it is never stepped
+            segments = new SegmentStore(new ArrayList<>());
+            segmentGrid = new SegmentGrid(segments, Config.SEGMENT_GRID_CELL_SIZE);
+            generator.carve();
+            System.out.println("Streaming maze " + resource + " in tiles of " + Config.MAZE_TILE_CELLS + " cells");
+            return;
+        }
+
+        // Walls come out as maximal runs already, compacting would only risk merging neighbouring corridors
+        segments = new SegmentStore(generator.generate());
+        segmentGrid = new SegmentGrid(segments, Config.SEGMENT_GRID_CELL_SIZE);
+        System.out.println("Generated maze " + resource + ": " + segments.size() + " segments");
+    }
+
+    /**
+     * Initialize maze (290x290 for the bundled image)
+     */
+    private void InitializeMap() {
+        loadedFromCache = false;
+
+        byte[] source = null;
+
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            if (in != null)
+                source = in.readAllBytes();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        byte[] key = (source != null && Config.useMazeCache) ? MazeCache.key(source) : null;
+
+        // Previously extracted geometry of the same image and settings
+        if (key != null) {
+            MazeCache cache = MazeCache.read(MazeCache.file(key), key);
+            if (cache != null) {
+                segments = cache.getSegments();
+                segmentGrid = cache.getGrid();
+                loadedFromCache = true;
+                lineSegments.clear();
+                return;
+            }
+        }
+
+        BufferedImage bf = null;
+
+        try {
+            if (source != null)
+                bf = ImageIO.read(new ByteArrayInputStream(source));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (bf != null)
+            lineSegments.addAll(MazeExtractor.extract(bf));
+
+        List<LineSegment> packed = lineSegments;
+        if (Config.compactMaze) {
+            packed = MazeCompactor.compact(lineSegments, Config.mergeParallelWalls, Config.WALL_MERGE_GAP);
+            System.out.println("Maze segments: " + lineSegments.size() + " -> " + packed.size());
+        }
+
+        // Pack and index borders and maze once, before any rotation is applied
+        segments = new SegmentStore(packed);
+        segmentGrid = new SegmentGrid(segments, Config.SEGMENT_GRID_CELL_SIZE);
+        lineSegments.clear();
+
+        if (key != null)
+            MazeCache.write(MazeCache.file(key), key, segments, segmentGrid);
+    }
+}
@@ -0,0 +1,465 @@
+package scripts.Map;
+
+import scripts.GameObject.Circle;
+import scripts.GameObject.LineSegment;
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.MazeTransform;
+import scripts.Physics.SegmentGrid;
+import scripts.Physics.TiledSegmentGrid;
+import scripts.Physics.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MazeStreamer {
+
+    /**
+     * Background thread building tiles ahead of the balls, shared by all worlds
+     */
+    private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "maze-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Carved maze the tiles are cut from
+     */
+    private final MazeGenerator generator;
+
+    /**
+     * Cells per tile side
+     */
+    private final int tileCells;
+
+    /**
+     * Side length of a tile
+     */
+    private final double tileSize;
+
+    /**
+     * Tiles per row and column
+     */
+    private final int tilesX, tilesY;
+
+    /**
+     * Most tiles kept in memory, tiles in use are never evicted
+     */
+    private final int capacity;
+
+    /**
+     * Loaded tiles by tile index, least recently used first
+     */
+    private final LinkedHashMap<Integer, Tile> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Tiles being built on the prefetch thread
+     */
+    private final HashMap<Integer, Future<Tile>> pending = new HashMap<>();
+
+    /**
+     * Tiles the world geometry currently holds, ascending
+     */
+    private int[] resident = new int[0];
+
+    /**
+     * Segments of the resident tiles, each tile in one contiguous range
+     */
+    private SegmentStore segments = new SegmentStore(0);
+
+    /**
+     * Spatial index over the resident tiles, one grid per tile
+     */
+    private final TiledSegmentGrid segmentGrid;
+
+    /**
+     * Tiles needed for the current step, ascending and unique after collecting
+     */
+    private int[] wanted = new int[64];
+
+    /**
+     * Amount of collected wanted tiles
+     */
+    private int wantedCount;
+
+    /**
+     * Tiles needed before the prefetch thread delivered them
+     */
+    private long syncLoads;
+
+    /**
+     * Tiles delivered by the prefetch thread
+     */
+    private long prefetchedLoads;
+
+    /**
+     * Times the resident tiles changed
+     */
+    private long swaps;
+
+    /**
+     * Times the segment store was reallocated to hold more tiles
+     */
+    private long rebuilds;
+
+    /**
+     * Constructor
+     *
+     * @param generator maze to stream, carved before the first tile is requested
+     * @param tileCells cells per tile side
+     * @param capacity  most tiles kept in memory
+     */
+    public MazeStreamer(MazeGenerator generator, int tileCells, int capacity) {
+        generator.carve();
+
+        this.generator = generator;
+        this.tileCells = tileCells;
+        this.tileSize = tileCells * generator.getCellSize();
+        this.tilesX = (generator.getCols() + tileCells - 1) / tileCells;
+        this.tilesY = (generator.getRows() + tileCells - 1) / tileCells;
+        this.capacity = capacity;
+        this.segmentGrid = new TiledSegmentGrid(generator.getOrigin(), generator.getOrigin(), tileSize, tilesX, tilesY,
+                generator.getWallRadius());
+    }
+
+    /**
+     * Make the tiles around the moving balls and under the canvas resident, and prefetch the ring beyond them
+     *
+     * @param world world whose geometry is swapped tile by tile when the needed tiles change
+     */
+    public void update(World world) {
+        collectDelivered();
+
+        MazeTransform transform = world.getTransform();
+        double halfX = (double) Config.CANVAS_WIDTH / 2;
+        double halfY = (double) Config.CANVAS_HEIGHT / 2;
+
+        // The canvas turned by the world angle, as in Viewport: the transform stays unrotated with rotated gravity
+        double sin = Math.abs(Math.sin(transform.getAngle()));
+        double cos = Math.abs(Math.cos(transform.getAngle()));
+        double reach = generator.getWallRadius() + Config.MAZE_STREAM_MARGIN;
+        double canvasX = halfX * cos + halfY * sin + reach;
+        double canvasY = halfX * sin + halfY * cos + reach;
+
+        // The rotated canvas seen from the maze frame, centered where the camera looks
+        Circle player = world.followsPlayer() ? world.getPlayer() : null;
+        double midX = player == null ? transform.getPivotX()
+                : Config.rotateGravity ? player.getX() : transform.toLocalX(player.getX(), player.getY());
+        double midY = player == null ? transform.getPivotY()
+                : Config.rotateGravity ? player.getY() : transform.toLocalY(player.getX(), player.getY());
+
+        wantedCount = 0;
+        addTiles(midX - canvasX, midY - canvasY, midX + canvasX, midY + canvasY, 0);
+
+        List<Circle> circles = world.getCircles();
+        for (int i = 0; i < circles.size(); i++) {
+            Circle circle = circles.get(i);
+            if (circle.isMarker())
+                continue;
+
+            double lx = Config.rotateGravity ? circle.getX() : transform.toLocalX(circle.getX(), circle.getY());
+            double ly = Config.rotateGravity ? circle.getY() : transform.toLocalY(circle.getX(), circle.getY());
+            double ballReach = circle.getRadius() + Config.MAZE_STREAM_MARGIN
+                    + (Math.abs(circle.getVx()) + Math.abs(circle.getVy())) * Config.FIXED_TIMESTEP * 2;
+
+            addTiles(lx - ballReach, ly - ballReach, lx + ballReach, ly + ballReach, 0);
+            prefetch(lx - ballReach, ly - ballReach, lx + ballReach, ly + ballReach);
+        }
+        prefetch(midX - canvasX, midY - canvasY, midX + canvasX, midY + canvasY);
+
+        int count = sortUnique(wanted, wantedCount);
+        if (!Arrays.equals(resident, 0, resident.length, wanted, 0, count)) {
+            swap(Arrays.copyOf(wanted, count), transform);
+            swaps++;
+        }
+
+        // The first swap and every reallocation hand the world a new store
+        if (world.getSegments() != segments)
+            world.setGeometry(segments, segmentGrid);
+
+        evict();
+    }
+
+    /**
+     * Drop the segments of tiles no longer needed and append the new ones, leaving the other tiles in place
+     *
+     * @param tiles     tiles needed from now on, ascending
+     * @param transform maze transform the appended segments are rotated by
+     */
+    private void swap(int[] tiles, MazeTransform transform) {
+        for (int tile : resident) {
+            if (Arrays.binarySearch(tiles, tile) >= 0)
+                continue;
+
+            // Tiles stored behind the dropped one move forward by its segments
+            int offset = segmentGrid.getOffset(tile);
+            int length = cache.get(tile).segments.size();
+            segments.remove(offset, length);
+            segmentGrid.removeTile(tile);
+
+            for (int other : resident) {
+                if (other != tile && segmentGrid.getOffset(other) > offset)
+                    segmentGrid.setOffset(other, segmentGrid.getOffset(other) - length);
+            }
+        }
+
+        // Tiles in ascending order, so the same history always gives the same segment order
+        int needed = segments.size();
+        for (int tile : tiles) {
+            if (Arrays.binarySearch(resident, tile) < 0)
+                needed += getTile(tile).segments.size();
+        }
+
+        if (needed > segments.getCapacity()) {
+            segments = segments.grow(Math.max(needed, segments.getCapacity() * 2));
+            rebuilds++;
+        }
+
+        for (int tile : tiles) {
+            if (Arrays.binarySearch(resident, tile) < 0) {
+                Tile loaded = getTile(tile);
+                segmentGrid.setTile(tile, loaded.grid, segments.append(loaded.segments, transform));
+            }
+        }
+
+        resident = tiles;
+    }
+
+    /**
+     * Collect the tiles overlapping a maze-local box into the wanted list
+     *
+     * @param loX   box left
+     * @param loY   box top
+     * @param hiX   box right
+     * @param hiY   box bottom
+     * @param ahead extra tiles around the box
+     */
+    private void addTiles(double loX, double loY, double hiX, double hiY, int ahead) {
+        double origin = generator.getOrigin();
+        if (hiX < origin || hiY < origin || loX > origin + tilesX * tileSize || loY > origin + tilesY * tileSize)
+            return;
+
+        int fromX = Math.max(0, (int) Math.floor((loX - origin) / tileSize) - ahead);
+        int fromY = Math.max(0, (int) Math.floor((loY - origin) / tileSize) - ahead);
+        int toX = Math.min(tilesX - 1, (int) Math.floor((hiX - origin) / tileSize) + ahead);
+        int toY = Math.min(tilesY - 1, (int) Math.floor((hiY - origin) / tileSize) + ahead);
+
+        for (int ty = fromY; ty <= toY; ty++) {
+            for (int tx = fromX; tx <= toX; tx++) {
+                if (wantedCount == wanted.length)
+                    wanted = Arrays.copyOf(wanted, wantedCount * 2);
+                wanted[wantedCount++] = ty * tilesX + tx;
+            }
+        }
+    }
+
+    /**
+     * Queue the tiles one ring beyond a box that are neither loaded nor on their way
+     *
+     * @param loX box left
+     * @param loY box top
+     * @param hiX box right
+     * @param hiY box bottom
+     */
+    private void prefetch(double loX, double loY, double hiX, double hiY) {
+        int before = wantedCount;
+        addTiles(loX, loY, hiX, hiY, 1);
+
+        for (int k = before; k < wantedCount; k++) {
+            int tile = wanted[k];
+            if (!cache.containsKey(tile) && !pending.containsKey(tile))
+                pending.put(tile, prefetcher.submit(() -> loadTile(tile)));
+        }
+        wantedCount = before;
+    }
+
+    /**
+     * Move tiles finished on the prefetch thread into the cache
+     */
+    private void collectDelivered() {
+        Iterator<Map.Entry<Integer, Future<Tile>>> it = pending.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<Tile>> entry = it.next();
+            if (!entry.getValue().isDone())
+                continue;
+
+            cache.put(entry.getKey(), join(entry.getKey(), entry.getValue()));
+            prefetchedLoads++;
+            it.remove();
+        }
+    }
+
+    /**
+     * Return a tile, waiting for its prefetch or building it right away
+     *
+     * @param tile tile index
+     * @return loaded tile
+     */
+    private Tile getTile(int tile) {
+        Tile loaded = cache.get(tile);
+        if (loaded != null)
+            return loaded;
+
+        Future<Tile> future = pending.remove(tile);
+        loaded = future != null ? join(tile, future) : loadTile(tile);
+        syncLoads++;
+
+        cache.put(tile, loaded);
+        return loaded;
+    }
+
+    /**
+     * Wait for a prefetched tile, building it here if the prefetch failed
+     *
+     * @param tile   tile index
+     * @param future prefetch of the tile
+     * @return loaded tile
+     */
+    private Tile join(int tile, Future<Tile> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        return loadTile(tile);
+    }
+
+    /**
+     * Cut the walls of a tile from the carved maze and index them
+     *
+     * @param tile tile index
+     * @return loaded tile
+     */
+    private Tile loadTile(int tile) {
+        int col = (tile % tilesX) * tileCells;
+        int row = (tile / tilesX) * tileCells;
+
+        List<LineSegment> walls = generator.getWalls(col, row,
+                Math.min(generator.getCols(), col + tileCells), Math.min(generator.getRows(), row + tileCells));
+        SegmentStore segments = new SegmentStore(walls);
+        return new Tile(segments, new SegmentGrid(segments, Config.SEGMENT_GRID_CELL_SIZE));
+    }
+
+    /**
+     * Drop least recently used tiles above the capacity, keeping the resident ones
+     */
+    private void evict() {
+        Iterator<Integer> it = cache.keySet().iterator();
+
+        while (cache.size() > capacity && it.hasNext()) {
+            if (Arrays.binarySearch(resident, it.next()) < 0)
+                it.remove();
+        }
+    }
+
+    /**
+     * Sort a prefix of an array and drop repeated values
+     *
+     * @param values values
+     * @param count  length of the prefix
+     * @return length of the unique prefix
+     */
+    private static int sortUnique(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || values[unique - 1] != values[i])
+                values[unique++] = values[i];
+        }
+        return unique;
+    }
+
+    /**
+     * Return amount of tiles the world geometry is built from
+     *
+     * @return resident tiles
+     */
+    public int getResidentTiles() {
+        return resident.length;
+    }
+
+    /**
+     * Return amount of tiles held in memory
+     *
+     * @return cached tiles
+     */
+    public int getCachedTiles() {
+        return cache.size();
+    }
+
+    /**
+     * Return amount of tiles needed before the prefetch thread delivered them
+     *
+     * @return synchronous loads
+     */
+    public long getSyncLoads() {
+        return syncLoads;
+    }
+
+    /**
+     * Return amount of tiles delivered by the prefetch thread
+     *
+     * @return prefetched loads
+     */
+    public long getPrefetchedLoads() {
+        return prefetchedLoads;
+    }
+
+    /**
+     * Return amount of changes to the resident tiles
+     *
+     * @return swaps
+     */
+    public long getSwaps() {
+        return swaps;
+    }
+
+    /**
+     * Return amount of segment store reallocations
+     *
+     * @return rebuilds
+     */
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Walls of a tile packed and indexed on their own, copied into the world store while resident
+     */
+    private static class Tile {
+
+        /**
+         * Packed walls in maze-local coordinates
+         */
+        final SegmentStore segments;
+
+        /**
+         * Spatial index over the walls of this tile alone
+         */
+        final SegmentGrid grid;
+
+        /**
+         * Constructor
+         *
+         * @param segments packed walls
+         * @param grid     spatial index over the walls
+         */
+        Tile(SegmentStore segments, SegmentGrid grid) {
+            this.segments = segments;
+            this.grid = grid;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package scripts.Map;
+
+import javafx.scene.paint.Color;
+import scripts.GameObject.Circle;
+import scripts.GameObject.SegmentStore;
+import scripts.Physics.SegmentGrid;
+import scripts.Physics.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class StressScene {
+
+    /**
+     * Radius of the spawned balls
+     */
+    private static final double ballRadius = 3;
+
+    /**
+     * Mass of the spawned balls
+     */
+    private static final double ballMass = 10;
+
+    /**
+     * Placement attempts per requested ball before giving up
+     */
+    private static final int attemptsPerBall = 50;
+
+    /**
+     * Spawn balls at random free places inside an area of the maze
+     *
+     * @param world world to add the balls to
+     * @param count amount of balls
+     * @param seed  random seed, the same seed gives the same scene
+     * @param minX  area minimum x
+     * @param minY  area minimum y
+     * @param maxX  area maximum x
+     * @param maxY  area maximum y
+     * @return amount of balls placed, less than count if the area is full
+     */
+    public static int populate(World world, int count, long seed, double minX, double minY, double maxX, double maxY) {
+        Random random = new Random(seed);
+        SegmentStore segments = world.getSegments();
+        SegmentGrid grid = world.getSegmentGrid();
+        int[] candidates = new int[64];
+
+        List<Circle> placed = new ArrayList<>(world.getCircles());
+        int added = 0;
+
+        for (int attempt = 0; attempt < count * attemptsPerBall && added < count; attempt++) {
+            double x = minX + random.nextDouble() * (maxX - minX);
+            double y = minY + random.nextDouble() * (maxY - minY);
+
+            // Segments are still unrotated, so world and maze-local positions agree
+            double reach = ballRadius + grid.getMaxRadius() + 1;
+            int n = grid.query(x - reach, y - reach, x + reach, y + reach, candidates);
+            if (n < 0) {
+                candidates = new int[-n * 2];
+                n = grid.query(x - reach, y - reach, x + reach, y + reach, candidates);
+            }
+
+            if (touchesSegment(segments, candidates, n, x, y) || touchesCircle(placed, x, y))
+                continue;
+
+            Circle circle = new Circle(x, y, ballRadius, Color.hsb(random.nextDouble() * 360, 0.7, 0.9), 0, 0, ballMass, false);
+            world.addCircle(circle);
+            placed.add(circle);
+            added++;
+        }
+
+        return added;
+    }
+
+    /**
+     * Check whether a new ball would overlap one of the candidate segments
+     *
+     * @param segments   segment store
+     * @param candidates candidate segment indices
+     * @param n          amount of candidates
+     * @param x          ball x position
+     * @param y          ball y position
+     * @return overlap found
+     */
+    private static boolean touchesSegment(SegmentStore segments, int[] candidates, int n, double x, double y) {
+        for (int k = 0; k < n; k++) {
+            int i = candidates[k];
+            double t = Math.max(0, Math.min(1, ((x - segments.sx[i]) * segments.dx[i] + (y - segments.sy[i]) * segments.dy[i]) * segments.invLengthSq[i]));
+            double ox = x - (segments.sx[i] + t * segments.dx[i]);
+            double oy = y - (segments.sy[i] + t * segments.dy[i]);
+            double reach = ballRadius + segments.radius[i] + 1;
+
+            if (ox * ox + oy * oy < reach * reach)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a new ball would overlap a ball placed before
+     *
+     * @param placed balls in the world
+     * @param x      ball x position
+     * @param y      ball y position
+     * @return overlap found
+     */
+    private static boolean touchesCircle(List<Circle> placed, double x, double y) {
+        for (Circle circle : placed) {
+            double reach = ballRadius + circle.getRadius();
+            double ox = x - circle.getX();
+            double oy = y - circle.getY();
+
+            if (ox * ox + oy * oy < reach * reach)
+                return true;
+        }
+        return false;
+    }
+}
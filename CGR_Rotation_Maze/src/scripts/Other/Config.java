@@ -2,9 +2,10 @@ package scripts.Other;
 
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
+import scripts.Render.RenderMode;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Config {
 
@@ -19,9 +20,49 @@ public class Config {
     public static final int CANVAS_HEIGHT = 1000;
 
     /**
-     * KeySet
+     * Simulated time per physics step
      */
-    public static final HashSet<KeyCode> keySet = new HashSet<>(Arrays.asList(KeyCode.A, KeyCode.D, KeyCode.S));
+    public static final double FIXED_TIMESTEP = 1.0 / 60.0;
+
+    /**
+     * Most physics steps run for a single rendered frame before time is dropped
+     */
+    public static final int MAX_CATCH_UP_STEPS = 5;
+
+    /**
+     * How the maze is drawn, switchable at runtime
+     */
+    public static RenderMode renderMode = RenderMode.LAYER;
+
+    /**
+     * Skip maze segments and circles outside the rotated canvas when drawing
+     */
+    public static boolean cullViewport = true;
+
+    /**
+     * Supersampling of the pre-rendered maze image, in image pixels per maze-local unit
+     */
+    public static final double MAZE_LAYER_ZOOM = 2;
+
+    /**
+     * Cell size of the segment grid used for collision queries
+     */
+    public static final double SEGMENT_GRID_CELL_SIZE = 16;
+
+    /**
+     * Key rotating the maze counterclockwise
+     */
+    public static final KeyCode ROTATE_LEFT_KEY = KeyCode.A;
+
+    /**
+     * Key rotating the maze clockwise
+     */
+    public static final KeyCode ROTATE_RIGHT_KEY = KeyCode.D;
+
+    /**
+     * Key flipping the maze by half a turn
+     */
+    public static final KeyCode FLIP_KEY = KeyCode.S;
 
     /**
      * Maze color
@@ -39,17 +80,117 @@ public class Config {
     public static final Color FRAME_COLOR = new Color(0, 0, 0, 1);
 
     /**
-     * Flip timer Circle
+     * Test every line segment and circle on each collision step instead of querying the segment grid and broadphase (reference mode)
+     */
+    public static boolean bruteForceCollisions = false;
+
+    /**
+     * Narrow the grid candidates down in one batched distance pass before the exact segment tests
+     */
+    public static boolean batchedNarrowphase = false;
+
+    /**
+     * Run the batched pass in SIMD lanes when started with --add-modules jdk.incubator.vector, scalar otherwise
+     */
+    public static boolean vectorNarrowphase = true;
+
+    /**
+     * Sweep balls to the earliest impact instead of correcting overlaps in fixed sub-steps
+     */
+    public static boolean continuousCollisions = true;
+
+    /**
+     * Update independent groups of circles in parallel
+     */
+    public static boolean parallelPhysics = true;
+
+    /**
+     * Amount of circles from which parallel updates pay off
+     */
+    public static final int PARALLEL_PHYSICS_CIRCLES = 256;
+
+    /**
+     * Maze to play, an image resource or a generated maze such as "generated:100x100:7", set with --maze=RESOURCE
+     */
+    public static String mazeResource = "/images/maze.png";
+
+    /**
+     * Load generated mazes tile by tile around the balls and the canvas instead of all at once, set with --stream=true
+     */
+    public static boolean streamMaze = false;
+
+    /**
+     * Cells per side of a streamed maze tile
+     */
+    public static final int MAZE_TILE_CELLS = 16;
+
+    /**
+     * Most tiles kept in memory per world, tiles in use are never evicted
+     */
+    public static final int MAZE_TILE_CACHE = 64;
+
+    /**
+     * Room kept loaded around every moving ball beyond its radius and next movement, and around the canvas
+     */
+    public static final double MAZE_STREAM_MARGIN = 32;
+
+    /**
+     * Amount of extra balls spawned into the maze to stress the simulation, set with --balls=N
+     */
+    public static int stressBalls = 0;
+
+    /**
+     * Keep the maze fixed in its own frame and rotate gravity and rendering instead (set before the game starts)
+     */
+    public static boolean rotateGravity = false;
+
+    /**
+     * Image size in pixels from which the maze rows and columns are scanned in parallel
+     */
+    public static final long PARALLEL_EXTRACTION_PIXELS = 1 << 20;
+
+    /**
+     * Merge collinear runs and drop degenerate segments after extracting the maze
+     */
+    public static boolean compactMaze = true;
+
+    /**
+     * Replace stacks of parallel maze lines by a single thick wall while compacting
+     */
+    public static boolean mergeParallelWalls = false;
+
+    /**
+     * Largest distance between stacked lines of one wall (one maze pixel)
+     */
+    public static final double WALL_MERGE_GAP = 2;
+
+    /**
+     * Load the extracted maze from a binary cache file when it matches the maze image
+     */
+    public static boolean useMazeCache = true;
+
+    /**
+     * Show frame phase percentiles on top of the canvas
+     */
+    public static boolean showFrameStats = false;
+
+    /**
+     * File the frame phase percentiles are dumped to
+     */
+    public static final Path FRAME_STATS_FILE = Paths.get(System.getProperty("user.home"), ".cgr-rotation-maze", "frame-stats.csv");
+
+    /**
+     * File the played frames are recorded to, set with --record=FILE, null to not record
      */
-    public static double flipTimer = 0.0;
+    public static Path recordFile = null;
 
     /**
-     * Timer variable
+     * File of recorded frames played back instead of keyboard input, set with --replay=FILE
      */
-    public static boolean allowFlip = true;
+    public static Path replayFile = null;
 
     /**
-     * Winning condition
+     * Directory of the binary maze cache files, one per source key
      */
-    public static boolean win = false;
+    public static final Path MAZE_CACHE_DIR = Paths.get(System.getProperty("user.home"), ".cgr-rotation-maze");
 }
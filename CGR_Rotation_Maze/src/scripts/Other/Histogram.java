@@ -0,0 +1,141 @@
+package scripts.Other;
+
+import java.util.Arrays;
+
+public class Histogram {
+
+    /**
+     * Bits of precision kept per power of two, values below 2^subBucketBits are counted exactly
+     */
+    private static final int subBucketBits = 5;
+
+    /**
+     * Values counted exactly
+     */
+    private static final int exactBuckets = 1 << subBucketBits;
+
+    /**
+     * Buckets per power of two above the exact range
+     */
+    private static final int halfBuckets = exactBuckets / 2;
+
+    /**
+     * Counts per bucket, covering every non-negative long with at most 1/16 relative error
+     */
+    private final long[] counts = new long[exactBuckets + (64 - subBucketBits) * halfBuckets];
+
+    /**
+     * Amount of recorded values
+     */
+    private long count;
+
+    /**
+     * Largest recorded value
+     */
+    private long max;
+
+    /**
+     * Sum of recorded values
+     */
+    private long sum;
+
+    /**
+     * Record a value, negative values count as 0
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Return the value below which a share of the recorded values lie
+     *
+     * @param percentile share in percent, 0 to 100
+     * @return upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank)
+                return Math.min(max, highestValueOf(b));
+        }
+        return max;
+    }
+
+    /**
+     * Return largest recorded value
+     *
+     * @return largest value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Return mean of the recorded values
+     *
+     * @return mean, 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Return amount of recorded values
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Forget all recorded values
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    /**
+     * Bucket of a value: exact below 32, else the top five bits of the value and its power of two
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    private static int bucketOf(long value) {
+        if (value < exactBuckets)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (subBucketBits - 1);
+        return exactBuckets + (shift - 1) * halfBuckets + (int) (value >>> shift) - halfBuckets;
+    }
+
+    /**
+     * Largest value counted in a bucket
+     *
+     * @param bucket bucket index
+     * @return highest equivalent value
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < exactBuckets)
+            return bucket;
+
+        int shift = (bucket - exactBuckets) / halfBuckets + 1;
+        long mantissa = (bucket - exactBuckets) % halfBuckets + halfBuckets;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,288 @@
+package scripts.Physics;
+
+import scripts.GameObject.Circle;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CircleBroadphase {
+
+    /**
+     * Extra room on the swept reach for bounces that speed a circle up during the step
+     */
+    private static final double velocityMargin = 2;
+
+    /**
+     * Constant room for position corrections during the step
+     */
+    private static final double positionMargin = 1;
+
+    /**
+     * Circle indices sorted by the lower x bound, kept between steps so re-sorting stays close to linear
+     */
+    private int[] order = new int[0];
+
+    /**
+     * Bounds of every circle, padded by the distance it may travel during the step
+     */
+    private double[] minX = new double[0], maxX = new double[0], minY = new double[0], maxY = new double[0];
+
+    /**
+     * Offset of each circle's candidates into candidates, the last entry holds the total
+     */
+    private int[] candidateStart = new int[1];
+
+    /**
+     * Candidate circle indices, ascending per circle
+     */
+    private int[] candidates = new int[0];
+
+    /**
+     * Next free candidate slot of each circle while filling
+     */
+    private int[] fill = new int[0];
+
+    /**
+     * Union-find parent of every circle while grouping islands
+     */
+    private int[] parent = new int[0];
+
+    /**
+     * Island of every circle
+     */
+    private int[] islandOf = new int[0];
+
+    /**
+     * Offset of each island into islandItems, the last entry holds the total
+     */
+    private int[] islandStart = new int[1];
+
+    /**
+     * Circle indices grouped by island, ascending per island
+     */
+    private int[] islandItems = new int[0];
+
+    /**
+     * Amount of islands
+     */
+    private int islandCount;
+
+    /**
+     * Both circles of each overlapping pair found by the sweep
+     */
+    private int[] pairA = new int[64], pairB = new int[64];
+
+    /**
+     * Sweep and prune the circles along x and collect the pairs whose padded bounds overlap
+     *
+     * @param circles   circles in simulation order
+     * @param deltaTime time the bounds have to cover
+     */
+    public void update(List<Circle> circles, double deltaTime) {
+        int n = circles.size();
+
+        if (order.length != n) {
+            order = new int[n];
+            for (int i = 0; i < n; i++)
+                order[i] = i;
+
+            minX = new double[n];
+            maxX = new double[n];
+            minY = new double[n];
+            maxY = new double[n];
+            candidateStart = new int[n + 1];
+            fill = new int[n];
+            parent = new int[n];
+            islandOf = new int[n];
+            islandStart = new int[n + 1];
+            islandItems = new int[n];
+        }
+
+        for (int i = 0; i < n; i++) {
+            Circle circle = circles.get(i);
+            double speed = Math.sqrt(circle.getVx() * circle.getVx() + circle.getVy() * circle.getVy());
+            double reach = circle.getRadius() + speed * deltaTime * velocityMargin + positionMargin;
+
+            minX[i] = circle.getX() - reach;
+            maxX[i] = circle.getX() + reach;
+            minY[i] = circle.getY() - reach;
+            maxY[i] = circle.getY() + reach;
+        }
+
+        // Insertion sort, circles rarely swap places between two steps
+        for (int a = 1; a < n; a++) {
+            int i = order[a];
+            int b = a - 1;
+            while (b >= 0 && minX[order[b]] > minX[i]) {
+                order[b + 1] = order[b];
+                b--;
+            }
+            order[b + 1] = i;
+        }
+
+        // Sweep: only circles starting before the current one ends can overlap it
+        int pairs = 0;
+        Arrays.fill(candidateStart, 0);
+
+        for (int a = 0; a < n; a++) {
+            int i = order[a];
+
+            for (int b = a + 1; b < n && minX[order[b]] <= maxX[i]; b++) {
+                int j = order[b];
+
+                if (minY[j] > maxY[i] || maxY[j] < minY[i])
+                    continue;
+
+                if (pairs == pairA.length) {
+                    pairA = Arrays.copyOf(pairA, pairs * 2);
+                    pairB = Arrays.copyOf(pairB, pairs * 2);
+                }
+                pairA[pairs] = i;
+                pairB[pairs] = j;
+                pairs++;
+
+                candidateStart[i + 1]++;
+                candidateStart[j + 1]++;
+            }
+        }
+
+        for (int i = 0; i < n; i++)
+            candidateStart[i + 1] += candidateStart[i];
+
+        if (candidates.length < pairs * 2)
+            candidates = new int[pairs * 4];
+
+        // Fill both directions of every pair, each circle's slice is then sorted to match simulation order
+        System.arraycopy(candidateStart, 0, fill, 0, n);
+        for (int p = 0; p < pairs; p++) {
+            candidates[fill[pairA[p]]++] = pairB[p];
+            candidates[fill[pairB[p]]++] = pairA[p];
+        }
+
+        for (int i = 0; i < n; i++)
+            Arrays.sort(candidates, candidateStart[i], candidateStart[i + 1]);
+
+        buildIslands(n, pairs);
+    }
+
+    /**
+     * Group circles connected by candidate pairs, no circle can touch another island during the step
+     *
+     * @param n     amount of circles
+     * @param pairs amount of candidate pairs
+     */
+    private void buildIslands(int n, int pairs) {
+        for (int i = 0; i < n; i++)
+            parent[i] = i;
+
+        for (int p = 0; p < pairs; p++) {
+            int a = root(pairA[p]);
+            int b = root(pairB[p]);
+
+            // The smaller index becomes the root, so islands are numbered by their first circle
+            if (a < b)
+                parent[b] = a;
+            else if (b < a)
+                parent[a] = b;
+        }
+
+        islandCount = 0;
+        for (int i = 0; i < n; i++) {
+            int r = root(i);
+            islandOf[i] = r == i ? islandCount++ : islandOf[r];
+        }
+
+        Arrays.fill(islandStart, 0);
+        for (int i = 0; i < n; i++)
+            islandStart[islandOf[i] + 1]++;
+        for (int k = 0; k < islandCount; k++)
+            islandStart[k + 1] += islandStart[k];
+
+        System.arraycopy(islandStart, 0, fill, 0, islandCount);
+        for (int i = 0; i < n; i++)
+            islandItems[fill[islandOf[i]]++] = i;
+    }
+
+    /**
+     * Find the union-find root of a circle and shorten the path on the way
+     *
+     * @param i circle index
+     * @return root circle index
+     */
+    private int root(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Return offset of the first candidate of a circle
+     *
+     * @param index circle index
+     * @return first candidate offset
+     */
+    public int getCandidatesStart(int index) {
+        return candidateStart[index];
+    }
+
+    /**
+     * Return offset past the last candidate of a circle
+     *
+     * @param index circle index
+     * @return end candidate offset
+     */
+    public int getCandidatesEnd(int index) {
+        return candidateStart[index + 1];
+    }
+
+    /**
+     * Return amount of islands
+     *
+     * @return island count
+     */
+    public int getIslandCount() {
+        return islandCount;
+    }
+
+    /**
+     * Return offset of the first circle of an island
+     *
+     * @param island island index
+     * @return first circle offset
+     */
+    public int getIslandStart(int island) {
+        return islandStart[island];
+    }
+
+    /**
+     * Return offset past the last circle of an island
+     *
+     * @param island island index
+     * @return end circle offset
+     */
+    public int getIslandEnd(int island) {
+        return islandStart[island + 1];
+    }
+
+    /**
+     * Return circle of an island
+     *
+     * @param k circle offset
+     * @return circle index
+     */
+    public int getIslandCircle(int k) {
+        return islandItems[k];
+    }
+
+    /**
+     * Return candidate circle index
+     *
+     * @param k candidate offset
+     * @return circle index
+     */
+    public int getCandidate(int k) {
+        return candidates[k];
+    }
+}
@@ -0,0 +1,70 @@
+package scripts.Physics;
+
+public class FixedTimestep {
+
+    /**
+     * Simulated time per physics step
+     */
+    private final double stepTime;
+
+    /**
+     * Most physics steps run for a single frame
+     */
+    private final int maxCatchUpSteps;
+
+    /**
+     * Frame time not yet simulated
+     */
+    private double accumulator;
+
+    /**
+     * Constructor
+     *
+     * @param stepTime        simulated time per physics step
+     * @param maxCatchUpSteps most physics steps run for a single frame
+     */
+    public FixedTimestep(double stepTime, int maxCatchUpSteps) {
+        this.stepTime = stepTime;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+    }
+
+    /**
+     * Add the time of a rendered frame
+     *
+     * @param frameTime Passed time since last frame
+     * @return amount of physics steps to run
+     */
+    public int advance(double frameTime) {
+        accumulator += Math.max(0, frameTime);
+
+        int steps = (int) (accumulator / stepTime);
+
+        // A long frame (GC, window drag) is dropped instead of being simulated in a burst
+        if (steps > maxCatchUpSteps) {
+            steps = maxCatchUpSteps;
+            accumulator = 0;
+        } else {
+            accumulator -= steps * stepTime;
+        }
+
+        return steps;
+    }
+
+    /**
+     * Return how far the remaining frame time reaches into the next physics step
+     *
+     * @return interpolation factor between the last two physics states, 0 to 1
+     */
+    public double getAlpha() {
+        return Math.min(1, accumulator / stepTime);
+    }
+
+    /**
+     * Return simulated time per physics step
+     *
+     * @return step time
+     */
+    public double getStepTime() {
+        return stepTime;
+    }
+}
@@ -0,0 +1,232 @@
+package scripts.Physics;
+
+import scripts.Other.Config;
+
+public class MazeTransform {
+
+    /**
+     * Rotation center, the canvas mid point unless the maze sets its own
+     */
+    private double midPointX = (double) Config.CANVAS_WIDTH / 2;
+
+    /**
+     * Rotation center, the canvas mid point unless the maze sets its own
+     */
+    private double midPointY = (double) Config.CANVAS_HEIGHT / 2;
+
+    /**
+     * World to maze-local matrix
+     */
+    private double i00 = 1, i01 = 0, i10 = 0, i11 = 1;
+
+    /**
+     * Accumulated world rotation of the maze frame
+     */
+    private double angle;
+
+    /**
+     * Sine and cosine of the world rotation
+     */
+    private double sin = 0, cos = 1;
+
+    /**
+     * Rotation applied during the current frame
+     */
+    private double step;
+
+    /**
+     * Sine and cosine of the rotation applied during the current frame
+     */
+    private double stepSin = 0, stepCos = 1;
+
+    /**
+     * Apply the rotation of the current frame
+     *
+     * @param rotation rotation in radians, 0 if the maze did not turn
+     */
+    public void rotate(double rotation) {
+        this.step = rotation;
+
+        if (rotation == 0)
+            return;
+
+        // Trigonometry is evaluated once per frame, never per game object
+        this.angle = (this.angle + rotation) % (2 * Math.PI);
+        this.sin = Math.sin(this.angle);
+        this.cos = Math.cos(this.angle);
+        this.stepSin = Math.sin(rotation);
+        this.stepCos = Math.cos(rotation);
+
+        // Rotated segments are mapped back by the inverse rotation, a fixed maze needs no mapping
+        if (!Config.rotateGravity) {
+            this.i00 = this.cos;
+            this.i01 = this.sin;
+            this.i10 = -this.sin;
+            this.i11 = this.cos;
+        }
+    }
+
+    /**
+     * Move the rotation center, only before the first rotation
+     *
+     * @param x maze-local x position
+     * @param y maze-local y position
+     */
+    public void setPivot(double x, double y) {
+        this.midPointX = x;
+        this.midPointY = y;
+    }
+
+    /**
+     * Return rotation center, the same point in the maze frame and in world space
+     *
+     * @return x position
+     */
+    public double getPivotX() {
+        return midPointX;
+    }
+
+    /**
+     * Return rotation center, the same point in the maze frame and in world space
+     *
+     * @return y position
+     */
+    public double getPivotY() {
+        return midPointY;
+    }
+
+    /**
+     * Return whether the maze rotated during the current frame
+     *
+     * @return rotation changed
+     */
+    public boolean hasRotated() {
+        return step != 0;
+    }
+
+    /**
+     * Return world rotation of the maze frame
+     *
+     * @return angle in radians
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Return world rotation between the previous and the current physics step
+     *
+     * @param alpha interpolation factor, 0 to 1
+     * @return angle in radians
+     */
+    public double getInterpolatedAngle(double alpha) {
+        // A flip snaps instead of sweeping through half a turn
+        if (Math.abs(step) > 1)
+            return angle;
+        return angle - step * (1 - alpha);
+    }
+
+    /**
+     * Return sine of the world rotation
+     *
+     * @return sine
+     */
+    public double getSin() {
+        return sin;
+    }
+
+    /**
+     * Return cosine of the world rotation
+     *
+     * @return cosine
+     */
+    public double getCos() {
+        return cos;
+    }
+
+    /**
+     * Map a maze-local position to world x
+     *
+     * @param x maze-local x position
+     * @param y maze-local y position
+     * @return world x position
+     */
+    public double toWorldX(double x, double y) {
+        return midPointX + (x - midPointX) * cos - (y - midPointY) * sin;
+    }
+
+    /**
+     * Map a maze-local position to world y
+     *
+     * @param x maze-local x position
+     * @param y maze-local y position
+     * @return world y position
+     */
+    public double toWorldY(double x, double y) {
+        return midPointY + (x - midPointX) * sin + (y - midPointY) * cos;
+    }
+
+    /**
+     * Rotate a world position by the rotation of the current frame, x component
+     *
+     * @param x world x position
+     * @param y world y position
+     * @return rotated x position
+     */
+    public double stepX(double x, double y) {
+        return midPointX + (x - midPointX) * stepCos - (y - midPointY) * stepSin;
+    }
+
+    /**
+     * Rotate a world position by the rotation of the current frame, y component
+     *
+     * @param x world x position
+     * @param y world y position
+     * @return rotated y position
+     */
+    public double stepY(double x, double y) {
+        return midPointY + (x - midPointX) * stepSin + (y - midPointY) * stepCos;
+    }
+
+    /**
+     * Map a world position to maze-local x
+     *
+     * @param x world x position
+     * @param y world y position
+     * @return maze-local x position
+     */
+    public double toLocalX(double x, double y) {
+        return midPointX + i00 * (x - midPointX) + i01 * (y - midPointY);
+    }
+
+    /**
+     * Map a world position to maze-local y
+     *
+     * @param x world x position
+     * @param y world y position
+     * @return maze-local y position
+     */
+    public double toLocalY(double x, double y) {
+        return midPointY + i10 * (x - midPointX) + i11 * (y - midPointY);
+    }
+
+    /**
+     * Half width of the maze-local box covering a world box
+     *
+     * @param halfExtent half size of the world box
+     * @return half width in maze-local space
+     */
+    public double localExtentX(double halfExtent) {
+        return halfExtent * (Math.abs(i00) + Math.abs(i01));
+    }
+
+    /**
+     * Half height of the maze-local box covering a world box
+     *
+     * @param halfExtent half size of the world box
+     * @return half height in maze-local space
+     */
+    public double localExtentY(double halfExtent) {
+        return halfExtent * (Math.abs(i10) + Math.abs(i11));
+    }
+}
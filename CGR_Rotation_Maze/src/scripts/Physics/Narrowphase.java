@@ -0,0 +1,77 @@
+package scripts.Physics;
+
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+
+public class Narrowphase {
+
+    /**
+     * The Vector API module was added to the boot layer with --add-modules jdk.incubator.vector
+     */
+    private static final boolean vectorAvailable = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * Utility class
+     */
+    private Narrowphase() {
+    }
+
+    /**
+     * Keep the candidate segments whose capsule lies within reach of a point, in their original order
+     *
+     * <p>Runs in SIMD lanes when enabled and available, otherwise in the scalar loop computing the same mask.</p>
+     *
+     * @param segments   segment store at its current rotation
+     * @param candidates segment indices, overwritten by the kept ones
+     * @param count      amount of candidates
+     * @param px         point x position
+     * @param py         point y position
+     * @param reach      distance from the point added to each segment radius
+     * @return amount of kept candidates
+     */
+    public static int filter(SegmentStore segments, int[] candidates, int count, double px, double py, double reach) {
+        if (Config.vectorNarrowphase && vectorAvailable)
+            return VectorNarrowphase.filter(segments, candidates, count, px, py, reach);
+        return filterScalar(segments, candidates, 0, count, 0, px, py, reach);
+    }
+
+    /**
+     * Return whether the batched pass runs in SIMD lanes
+     *
+     * @return vector path in use
+     */
+    public static boolean isVectorized() {
+        return Config.vectorNarrowphase && vectorAvailable;
+    }
+
+    /**
+     * Scalar distance test over a range of candidates, also the tail of the vector loop
+     *
+     * @param segments   segment store at its current rotation
+     * @param candidates segment indices, overwritten by the kept ones
+     * @param from       first candidate to test
+     * @param to         candidate after the last one to test
+     * @param kept       candidates kept before the range
+     * @param px         point x position
+     * @param py         point y position
+     * @param reach      distance from the point added to each segment radius
+     * @return amount of kept candidates
+     */
+    static int filterScalar(SegmentStore segments, int[] candidates, int from, int to, int kept, double px, double py, double reach) {
+        for (int k = from; k < to; k++) {
+            int i = candidates[k];
+
+            // Same operation order as the lanes, so both paths keep exactly the same segments
+            double fx = px - segments.sx[i];
+            double fy = py - segments.sy[i];
+            double t = Math.min(Math.max((fx * segments.dx[i] + fy * segments.dy[i]) * segments.invLengthSq[i], 0), 1);
+            double ox = fx - t * segments.dx[i];
+            double oy = fy - t * segments.dy[i];
+            double limit = segments.radius[i] + reach;
+
+            if (ox * ox + oy * oy <= limit * limit)
+                candidates[kept++] = i;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,298 @@
+package scripts.Physics;
+
+import scripts.GameObject.SegmentStore;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SegmentGrid {
+
+    /**
+     * Size of a grid cell
+     */
+    private final double cellSize;
+
+    /**
+     * Maze-local origin of the grid
+     */
+    private final double minX, minY;
+
+    /**
+     * Grid dimensions in cells
+     */
+    private final int cols, rows;
+
+    /**
+     * Offset of each cell into cellItems, the last entry holds the total
+     */
+    private final int[] cellStart;
+
+    /**
+     * Segment indices of all cells, packed back to back
+     */
+    private final int[] cellItems;
+
+    /**
+     * Largest segment radius
+     */
+    private final double maxRadius;
+
+    /**
+     * Build the grid over the unrotated segment positions
+     *
+     * @param segments segment store to index
+     * @param cellSize size of a grid cell
+     */
+    public SegmentGrid(SegmentStore segments, double cellSize) {
+        this.cellSize = cellSize;
+
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+        double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < segments.size(); i++) {
+            double r = segments.radius[i];
+            loX = Math.min(loX, Math.min(segments.bsx[i], segments.bex[i]) - r);
+            loY = Math.min(loY, Math.min(segments.bsy[i], segments.bey[i]) - r);
+            hiX = Math.max(hiX, Math.max(segments.bsx[i], segments.bex[i]) + r);
+            hiY = Math.max(hiY, Math.max(segments.bsy[i], segments.bey[i]) + r);
+        }
+
+        if (segments.size() == 0) {
+            loX = loY = hiX = hiY = 0;
+        }
+
+        this.minX = loX;
+        this.minY = loY;
+        this.maxRadius = segments.getMaxRadius();
+        this.cols = Math.max(1, (int) Math.ceil((hiX - loX) / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil((hiY - loY) / cellSize));
+
+        // Count segments per cell, then fill the packed cell lists
+        int[] counts = new int[cols * rows];
+        for (int i = 0; i < segments.size(); i++) {
+            double r = segments.radius[i];
+            int c0 = cellX(Math.min(segments.bsx[i], segments.bex[i]) - r), c1 = cellX(Math.max(segments.bsx[i], segments.bex[i]) + r);
+            int r0 = cellY(Math.min(segments.bsy[i], segments.bey[i]) - r), r1 = cellY(Math.max(segments.bsy[i], segments.bey[i]) + r);
+            for (int row = r0; row <= r1; row++)
+                for (int col = c0; col <= c1; col++)
+                    counts[row * cols + col]++;
+        }
+
+        this.cellStart = new int[cols * rows + 1];
+        for (int i = 0; i < counts.length; i++)
+            cellStart[i + 1] = cellStart[i] + counts[i];
+
+        this.cellItems = new int[cellStart[counts.length]];
+        int[] fill = Arrays.copyOf(cellStart, counts.length);
+        for (int i = 0; i < segments.size(); i++) {
+            double r = segments.radius[i];
+            int c0 = cellX(Math.min(segments.bsx[i], segments.bex[i]) - r), c1 = cellX(Math.max(segments.bsx[i], segments.bex[i]) + r);
+            int r0 = cellY(Math.min(segments.bsy[i], segments.bey[i]) - r), r1 = cellY(Math.max(segments.bsy[i], segments.bey[i]) + r);
+            for (int row = r0; row <= r1; row++)
+                for (int col = c0; col <= c1; col++)
+                    cellItems[fill[row * cols + col]++] = i;
+        }
+    }
+
+    /**
+     * Restore a grid written by write()
+     *
+     * @param minX      maze-local origin x
+     * @param minY      maze-local origin y
+     * @param cellSize  size of a grid cell
+     * @param cols      columns
+     * @param rows      rows
+     * @param cellStart cell offsets
+     * @param cellItems packed segment indices
+     * @param maxRadius largest segment radius
+     */
+    protected SegmentGrid(double minX, double minY, double cellSize, int cols, int rows, int[] cellStart, int[] cellItems, double maxRadius) {
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.cellStart = cellStart;
+        this.cellItems = cellItems;
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * Read a grid written by write()
+     *
+     * @param buffer   buffer positioned at the grid
+     * @param segments segment store the grid indexes
+     * @return segment grid
+     */
+    public static SegmentGrid read(ByteBuffer buffer, SegmentStore segments) {
+        double minX = buffer.getDouble();
+        double minY = buffer.getDouble();
+        double cellSize = buffer.getDouble();
+        int cols = buffer.getInt();
+        int rows = buffer.getInt();
+        if (cols <= 0 || rows <= 0 || ((long) cols * rows + 1) * Integer.BYTES > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        int[] cellStart = new int[cols * rows + 1];
+        buffer.asIntBuffer().get(cellStart);
+        buffer.position(buffer.position() + cellStart.length * Integer.BYTES);
+
+        if (cellStart[cols * rows] < 0 || (long) cellStart[cols * rows] * Integer.BYTES > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        int[] cellItems = new int[cellStart[cols * rows]];
+        buffer.asIntBuffer().get(cellItems);
+        buffer.position(buffer.position() + cellItems.length * Integer.BYTES);
+
+        for (int item : cellItems) {
+            if (item < 0 || item >= segments.size())
+                throw new IllegalStateException("Segment grid references segment " + item + " of " + segments.size());
+        }
+
+        return new SegmentGrid(minX, minY, cellSize, cols, rows, cellStart, cellItems, segments.getMaxRadius());
+    }
+
+    /**
+     * Write the grid
+     *
+     * @param buffer buffer to write to
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putDouble(minX);
+        buffer.putDouble(minY);
+        buffer.putDouble(cellSize);
+        buffer.putInt(cols);
+        buffer.putInt(rows);
+        buffer.asIntBuffer().put(cellStart);
+        buffer.position(buffer.position() + cellStart.length * Integer.BYTES);
+        buffer.asIntBuffer().put(cellItems);
+        buffer.position(buffer.position() + cellItems.length * Integer.BYTES);
+    }
+
+    /**
+     * Size of the grid written by write()
+     *
+     * @return size in bytes
+     */
+    public int byteSize() {
+        return 3 * Double.BYTES + 2 * Integer.BYTES + (cellStart.length + cellItems.length) * Integer.BYTES;
+    }
+
+    /**
+     * Collect the indices of all segments whose cells overlap a maze-local box.
+     * Indices are written sorted and without duplicates, so iterating them visits
+     * segments in the same order as a full scan of the store.
+     *
+     * @param loX minimum x
+     * @param loY minimum y
+     * @param hiX maximum x
+     * @param hiY maximum y
+     * @param out buffer for the indices
+     * @return number of indices written, or the negated buffer size required if out is too small
+     */
+    public int query(double loX, double loY, double hiX, double hiY, int[] out) {
+        int required = count(loX, loY, hiX, hiY);
+        if (required > out.length)
+            return -required;
+
+        return sortUnique(out, collect(loX, loY, hiX, hiY, out, 0, 0));
+    }
+
+    /**
+     * Count the cell entries overlapping a maze-local box, segments spanning several cells more than once
+     *
+     * @param loX minimum x
+     * @param loY minimum y
+     * @param hiX maximum x
+     * @param hiY maximum y
+     * @return amount of cell entries
+     */
+    int count(double loX, double loY, double hiX, double hiY) {
+        int c0 = cellX(loX), c1 = cellX(hiX);
+        int r0 = cellY(loY), r1 = cellY(hiY);
+
+        int required = 0;
+        for (int r = r0; r <= r1; r++)
+            required += cellStart[r * cols + c1 + 1] - cellStart[r * cols + c0];
+        return required;
+    }
+
+    /**
+     * Append the cell entries overlapping a maze-local box, unsorted and with repeats
+     *
+     * @param loX    minimum x
+     * @param loY    minimum y
+     * @param hiX    maximum x
+     * @param hiY    maximum y
+     * @param out    buffer for the indices, large enough for count()
+     * @param n      amount of indices already in the buffer
+     * @param offset added to every index
+     * @return amount of indices in the buffer
+     */
+    int collect(double loX, double loY, double hiX, double hiY, int[] out, int n, int offset) {
+        int c0 = cellX(loX), c1 = cellX(hiX);
+        int r0 = cellY(loY), r1 = cellY(hiY);
+
+        int start = n;
+        for (int r = r0; r <= r1; r++) {
+            int from = cellStart[r * cols + c0];
+            int to = cellStart[r * cols + c1 + 1];
+            System.arraycopy(cellItems, from, out, n, to - from);
+            n += to - from;
+        }
+
+        if (offset != 0) {
+            for (int k = start; k < n; k++)
+                out[k] += offset;
+        }
+        return n;
+    }
+
+    /**
+     * Sort collected indices and drop segments that span several cells
+     *
+     * @param out indices
+     * @param n   amount of indices
+     * @return amount of unique indices
+     */
+    static int sortUnique(int[] out, int n) {
+        Arrays.sort(out, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || out[unique - 1] != out[i])
+                out[unique++] = out[i];
+        }
+
+        return unique;
+    }
+
+    /**
+     * Return largest segment radius
+     *
+     * @return largest radius
+     */
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Clamped cell column of a maze-local x position
+     *
+     * @param x x position
+     * @return cell column
+     */
+    private int cellX(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    /**
+     * Clamped cell row of a maze-local y position
+     *
+     * @param y y position
+     * @return cell row
+     */
+    private int cellY(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize)));
+    }
+}
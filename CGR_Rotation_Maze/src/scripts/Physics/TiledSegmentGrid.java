@@ -0,0 +1,178 @@
+package scripts.Physics;
+
+import java.nio.ByteBuffer;
+
+public class TiledSegmentGrid extends SegmentGrid {
+
+    /**
+     * Maze-local top left corner of the first tile
+     */
+    private final double originX, originY;
+
+    /**
+     * Side length of a tile
+     */
+    private final double tileSize;
+
+    /**
+     * Tiles per row and column
+     */
+    private final int tilesX, tilesY;
+
+    /**
+     * Grid of every tile by tile index, null while the tile is not resident
+     */
+    private final SegmentGrid[] tiles;
+
+    /**
+     * Index of the first segment of every resident tile in the segment store
+     */
+    private final int[] offsets;
+
+    /**
+     * Largest segment radius of any tile
+     */
+    private final double maxRadius;
+
+    /**
+     * Create a grid without resident tiles
+     *
+     * @param originX   maze-local left edge of the first tile
+     * @param originY   maze-local top edge of the first tile
+     * @param tileSize  side length of a tile
+     * @param tilesX    tiles per row
+     * @param tilesY    tiles per column
+     * @param maxRadius largest segment radius of any tile
+     */
+    public TiledSegmentGrid(double originX, double originY, double tileSize, int tilesX, int tilesY, double maxRadius) {
+        super(originX, originY, tileSize, 1, 1, new int[2], new int[0], maxRadius);
+
+        this.originX = originX;
+        this.originY = originY;
+        this.tileSize = tileSize;
+        this.tilesX = tilesX;
+        this.tilesY = tilesY;
+        this.tiles = new SegmentGrid[tilesX * tilesY];
+        this.offsets = new int[tilesX * tilesY];
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * Make a tile resident
+     *
+     * @param tile   tile index
+     * @param grid   grid over the segments of the tile alone
+     * @param offset index of the first segment of the tile in the segment store
+     */
+    public void setTile(int tile, SegmentGrid grid, int offset) {
+        tiles[tile] = grid;
+        offsets[tile] = offset;
+    }
+
+    /**
+     * Drop a tile
+     *
+     * @param tile tile index
+     */
+    public void removeTile(int tile) {
+        tiles[tile] = null;
+    }
+
+    /**
+     * Move the segments of a resident tile within the segment store
+     *
+     * @param tile   tile index
+     * @param offset index of the first segment of the tile in the segment store
+     */
+    public void setOffset(int tile, int offset) {
+        offsets[tile] = offset;
+    }
+
+    /**
+     * Return index of the first segment of a resident tile in the segment store
+     *
+     * @param tile tile index
+     * @return segment index
+     */
+    public int getOffset(int tile) {
+        return offsets[tile];
+    }
+
+    /**
+     * Collect the indices of all segments of resident tiles whose cells overlap a maze-local box
+     *
+     * @param loX minimum x
+     * @param loY minimum y
+     * @param hiX maximum x
+     * @param hiY maximum y
+     * @param out buffer for the indices
+     * @return number of indices written, or the negated buffer size required if out is too small
+     */
+    @Override
+    public int query(double loX, double loY, double hiX, double hiY, int[] out) {
+        // Walls on a tile edge reach into the neighbouring tiles by their radius
+        double reach = maxRadius;
+        if (hiX + reach < originX || hiY + reach < originY
+                || loX - reach > originX + tilesX * tileSize || loY - reach > originY + tilesY * tileSize)
+            return 0;
+
+        int fromX = Math.max(0, (int) Math.floor((loX - reach - originX) / tileSize));
+        int fromY = Math.max(0, (int) Math.floor((loY - reach - originY) / tileSize));
+        int toX = Math.min(tilesX - 1, (int) Math.floor((hiX + reach - originX) / tileSize));
+        int toY = Math.min(tilesY - 1, (int) Math.floor((hiY + reach - originY) / tileSize));
+
+        int required = 0;
+        for (int ty = fromY; ty <= toY; ty++) {
+            for (int tx = fromX; tx <= toX; tx++) {
+                SegmentGrid grid = tiles[ty * tilesX + tx];
+                if (grid != null)
+                    required += grid.count(loX, loY, hiX, hiY);
+            }
+        }
+
+        if (required > out.length)
+            return -required;
+
+        int n = 0;
+        for (int ty = fromY; ty <= toY; ty++) {
+            for (int tx = fromX; tx <= toX; tx++) {
+                SegmentGrid grid = tiles[ty * tilesX + tx];
+                if (grid != null)
+                    n = grid.collect(loX, loY, hiX, hiY, out, n, offsets[ty * tilesX + tx]);
+            }
+        }
+
+        // Tiles own disjoint index ranges, so sorting restores the order of a full scan of the store
+        return sortUnique(out, n);
+    }
+
+    /**
+     * Return largest segment radius
+     *
+     * @return largest radius
+     */
+    @Override
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Tiles are cut from the generator again instead of being cached
+     *
+     * @param buffer buffer to write to
+     */
+    @Override
+    public void write(ByteBuffer buffer) {
+        throw new UnsupportedOperationException("Tiled segment grids are not written");
+    }
+
+    /**
+     * Tiles are cut from the generator again instead of being cached
+     *
+     * @return never returns
+     */
+    @Override
+    public int byteSize() {
+        throw new UnsupportedOperationException("Tiled segment grids are not written");
+    }
+}
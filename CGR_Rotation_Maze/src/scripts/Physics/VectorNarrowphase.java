@@ -0,0 +1,63 @@
+package scripts.Physics;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import scripts.GameObject.SegmentStore;
+
+class VectorNarrowphase {
+
+    /**
+     * Widest double lanes of the CPU
+     */
+    private static final VectorSpecies<Double> species = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Utility class, only loaded when the Vector API module is present
+     */
+    private VectorNarrowphase() {
+    }
+
+    /**
+     * Distance test of a lane-wide block of candidates at a time, gathering their geometry by index
+     *
+     * @param segments   segment store at its current rotation
+     * @param candidates segment indices, overwritten by the kept ones
+     * @param count      amount of candidates
+     * @param px         point x position
+     * @param py         point y position
+     * @param reach      distance from the point added to each segment radius
+     * @return amount of kept candidates
+     */
+    static int filter(SegmentStore segments, int[] candidates, int count, double px, double py, double reach) {
+        int lanes = species.length();
+        int bound = species.loopBound(count);
+        int kept = 0;
+
+        DoubleVector pointX = DoubleVector.broadcast(species, px);
+        DoubleVector pointY = DoubleVector.broadcast(species, py);
+
+        for (int k = 0; k < bound; k += lanes) {
+            DoubleVector dx = DoubleVector.fromArray(species, segments.dx, 0, candidates, k);
+            DoubleVector dy = DoubleVector.fromArray(species, segments.dy, 0, candidates, k);
+            DoubleVector fx = pointX.sub(DoubleVector.fromArray(species, segments.sx, 0, candidates, k));
+            DoubleVector fy = pointY.sub(DoubleVector.fromArray(species, segments.sy, 0, candidates, k));
+
+            DoubleVector t = fx.mul(dx).add(fy.mul(dy))
+                    .mul(DoubleVector.fromArray(species, segments.invLengthSq, 0, candidates, k))
+                    .max(0).min(1);
+            DoubleVector ox = fx.sub(t.mul(dx));
+            DoubleVector oy = fy.sub(t.mul(dy));
+            DoubleVector limit = DoubleVector.fromArray(species, segments.radius, 0, candidates, k).add(reach);
+
+            VectorMask<Double> hit = ox.mul(ox).add(oy.mul(oy)).compare(VectorOperators.LE, limit.mul(limit));
+
+            // Compact the hits in lane order, writes never overtake the block just read
+            for (long bits = hit.toLong(); bits != 0; bits &= bits - 1)
+                candidates[kept++] = candidates[k + Long.numberOfTrailingZeros(bits)];
+        }
+
+        return Narrowphase.filterScalar(segments, candidates, bound, count, kept, px, py, reach);
+    }
+}
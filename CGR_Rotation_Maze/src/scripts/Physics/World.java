@@ -0,0 +1,504 @@
+package scripts.Physics;
+
+import scripts.Controller.InputSnapshot;
+import scripts.GameObject.Circle;
+import scripts.Events.PhysicsStepEvent;
+import scripts.Events.RotationInputEvent;
+import scripts.GameObject.SegmentStore;
+import scripts.Map.MazeStreamer;
+import scripts.Other.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class World {
+
+    /**
+     * Gravity factor
+     */
+    private static final double gravityFactor = 600.0f;
+
+    /**
+     * Collection of balls, iterated in insertion order
+     */
+    private final ArrayList<Circle> circles = new ArrayList<>();
+
+    /**
+     * Packed line segment geometry
+     */
+    private SegmentStore segments;
+
+    /**
+     * Spatial index over the line segments in maze-local coordinates
+     */
+    private SegmentGrid segmentGrid;
+
+    /**
+     * Loads the maze tiles around the balls and the canvas, null when the whole maze is resident
+     */
+    private MazeStreamer streamer;
+
+    /**
+     * Maze-local box of the outer walls, balls wrap around the canvas while the maze has none
+     */
+    private double minX, minY, maxX, maxY;
+
+    /**
+     * The maze has outer walls and balls are never wrapped around the canvas
+     */
+    private boolean bounded;
+
+    /**
+     * Candidate pairs for circle collisions
+     */
+    private final CircleBroadphase circleBroadphase = new CircleBroadphase();
+
+    /**
+     * Circles were added since the broadphase was last updated
+     */
+    private boolean broadphaseStale = true;
+
+    /**
+     * Accumulated maze rotation
+     */
+    private final MazeTransform transform = new MazeTransform();
+
+    /**
+     * Gravity in the frame circles are simulated in
+     */
+    private double gravityX = 0, gravityY = gravityFactor;
+
+    /**
+     * Flip timer
+     */
+    private double flipTimer = 0.0;
+
+    /**
+     * Timer variable
+     */
+    private boolean allowFlip = true;
+
+    /**
+     * Winning condition
+     */
+    private boolean win = false;
+
+    /**
+     * Simulated time
+     */
+    private double time;
+
+    /**
+     * Duration of the rotation phase of the last step
+     */
+    private long rotationNanos;
+
+    /**
+     * Duration of the circle phase of the last step
+     */
+    private long collisionNanos;
+
+    /**
+     * Segments tested during the last step
+     */
+    private long segmentTests;
+
+    /**
+     * Contacts during the last step
+     */
+    private long contacts;
+
+    /**
+     * Flight recorder event of the current step, reused so steps allocate nothing
+     */
+    private final PhysicsStepEvent stepEvent = new PhysicsStepEvent();
+
+    /**
+     * Flight recorder event of the current rotation, reused like the step event
+     */
+    private final RotationInputEvent rotationEvent = new RotationInputEvent();
+
+    /**
+     * Constructor
+     *
+     * @param segments    packed line segment geometry
+     * @param segmentGrid spatial index over the segments
+     */
+    public World(SegmentStore segments, SegmentGrid segmentGrid) {
+        this.segments = segments;
+        this.segmentGrid = segmentGrid;
+    }
+
+    /**
+     * Advance the simulation by one frame
+     *
+     * @param input     input sampled for the frame
+     * @param deltaTime Passed time since last frame
+     */
+    public void step(InputSnapshot input, double deltaTime) {
+        rotationNanos = collisionNanos = segmentTests = contacts = 0;
+
+        if (!win) {
+            stepEvent.begin();
+
+            long rotationStart = System.nanoTime();
+
+            double rotation = rotationCommand(input);
+            transform.rotate(rotation);
+
+            if (rotation != 0) {
+                rotationEvent.begin();
+                if (rotationEvent.shouldCommit()) {
+                    rotationEvent.rotation = rotation;
+                    rotationEvent.flip = Math.abs(rotation) > 1;
+                    rotationEvent.angle = transform.getAngle();
+                    rotationEvent.commit();
+                }
+            }
+
+            if (Config.rotateGravity) {
+                // Gravity points down in world space, seen from the fixed maze frame
+                gravityX = gravityFactor * transform.getSin();
+                gravityY = gravityFactor * transform.getCos();
+            } else {
+                segments.update(transform);
+            }
+
+            // All circles turn with the maze before any of them moves
+            if (!Config.rotateGravity && transform.hasRotated()) {
+                for (int i = 0; i < circles.size(); i++)
+                    circles.get(i).rotateAroundMidPoint(transform);
+            }
+
+            // Tiles follow the balls at their turned positions, swapped geometry arrives rotated
+            if (streamer != null)
+                streamer.update(this);
+
+            long collisionStart = System.nanoTime();
+            rotationNanos = collisionStart - rotationStart;
+
+            circleBroadphase.update(circles, deltaTime);
+            broadphaseStale = false;
+
+            if (Config.parallelPhysics && !Config.bruteForceCollisions && circles.size() >= Config.PARALLEL_PHYSICS_CIRCLES) {
+                // Islands share no circles, each one runs in simulation order on the common pool
+                IntStream.range(0, circleBroadphase.getIslandCount()).parallel().forEach(island -> {
+                    for (int k = circleBroadphase.getIslandStart(island); k < circleBroadphase.getIslandEnd(island); k++)
+                        circles.get(circleBroadphase.getIslandCircle(k)).update(this, deltaTime);
+                });
+            } else {
+                for (int i = 0; i < circles.size(); i++)
+                    circles.get(i).update(this, deltaTime);
+            }
+
+            collisionNanos = System.nanoTime() - collisionStart;
+
+            // Checked after the islands joined, so the win flag is only ever written on the simulation thread
+            for (int i = 0; i < circles.size(); i++) {
+                Circle circle = circles.get(i);
+                segmentTests += circle.takeSegmentTests();
+                contacts += circle.takeContacts();
+
+                if (!circle.isMarker() && hasEscaped(circle))
+                    win = true;
+            }
+
+            if (stepEvent.shouldCommit()) {
+                stepEvent.circles = circles.size();
+                stepEvent.islands = circleBroadphase.getIslandCount();
+                stepEvent.segmentTests = segmentTests;
+                stepEvent.contacts = contacts;
+                stepEvent.commit();
+            }
+
+            if (flipTimer > 0.01)
+                allowFlip = false;
+
+            time += deltaTime;
+        }
+
+        // --- Update Flip Timer ---
+        flipTimer = (flipTimer < 0.0) ? 0.0 : flipTimer - deltaTime;
+        if (flipTimer > -0.01 && flipTimer < 0.01)
+            allowFlip = true;
+    }
+
+    /**
+     * Turn the input of a frame into the single rotation applied to the maze
+     *
+     * @param input input sampled for the frame
+     * @return rotation in radians, 0 if the maze does not turn
+     */
+    private double rotationCommand(InputSnapshot input) {
+        double rotation = 0;
+
+        if (input.isHeld(InputSnapshot.ROTATE_LEFT))
+            rotation -= 0.01;
+
+        if (input.isHeld(InputSnapshot.ROTATE_RIGHT))
+            rotation += 0.01;
+
+        // The flip timer belongs to the world, so a flip is granted exactly once
+        if (input.isHeld(InputSnapshot.FLIP) && ((flipTimer > -0.01 && flipTimer < 0.01) || allowFlip)) {
+            flipTimer = 0.5;
+            rotation += Math.PI;
+        }
+
+        return rotation;
+    }
+
+    /**
+     * Add a circle
+     *
+     * @param circle circle
+     */
+    public void addCircle(Circle circle) {
+        circle.setIndex(circles.size());
+        circles.add(circle);
+        broadphaseStale = true;
+    }
+
+    /**
+     * Return circles
+     *
+     * @return circles in simulation order
+     */
+    public List<Circle> getCircles() {
+        return circles;
+    }
+
+    /**
+     * Return packed line segment geometry
+     *
+     * @return segment store
+     */
+    public SegmentStore getSegments() {
+        return segments;
+    }
+
+    /**
+     * Return spatial index over the line segments
+     *
+     * @return segment grid
+     */
+    public SegmentGrid getSegmentGrid() {
+        return segmentGrid;
+    }
+
+    /**
+     * Replace the resident maze geometry, rotating it to the current angle
+     *
+     * @param segments    packed line segment geometry
+     * @param segmentGrid spatial index over the segments
+     */
+    public void setGeometry(SegmentStore segments, SegmentGrid segmentGrid) {
+        if (!Config.rotateGravity)
+            segments.apply(transform);
+
+        this.segments = segments;
+        this.segmentGrid = segmentGrid;
+    }
+
+    /**
+     * Stream the maze tile by tile and load the tiles around the current balls
+     *
+     * @param streamer maze streamer
+     */
+    public void setStreamer(MazeStreamer streamer) {
+        this.streamer = streamer;
+        streamer.update(this);
+    }
+
+    /**
+     * Return maze streamer
+     *
+     * @return streamer, null when the whole maze is resident
+     */
+    public MazeStreamer getStreamer() {
+        return streamer;
+    }
+
+    /**
+     * Enclose the maze in its outer walls and turn it around their center, before the first step
+     *
+     * @param minX maze-local left edge
+     * @param minY maze-local top edge
+     * @param maxX maze-local right edge
+     * @param maxY maze-local bottom edge
+     */
+    public void setBounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.bounded = true;
+
+        transform.setPivot((minX + maxX) / 2, (minY + maxY) / 2);
+    }
+
+    /**
+     * Return whether the maze has outer walls
+     *
+     * @return balls stay unwrapped
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Return whether the maze is larger than the canvas, so the view has to follow the player
+     *
+     * @return view follows the player
+     */
+    public boolean followsPlayer() {
+        return bounded && (maxX - minX > Config.CANVAS_WIDTH || maxY - minY > Config.CANVAS_HEIGHT);
+    }
+
+    /**
+     * Return the first ball that is not a marker
+     *
+     * @return player, null if there is none
+     */
+    public Circle getPlayer() {
+        for (int i = 0; i < circles.size(); i++) {
+            if (!circles.get(i).isMarker())
+                return circles.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Return whether a ball has left the maze, past the outer walls or beyond the canvas height without them
+     *
+     * @param circle ball
+     * @return ball escaped
+     */
+    private boolean hasEscaped(Circle circle) {
+        if (!bounded)
+            return circle.getX() > Config.CANVAS_HEIGHT;
+
+        double x = Config.rotateGravity ? circle.getX() : transform.toLocalX(circle.getX(), circle.getY());
+        double y = Config.rotateGravity ? circle.getY() : transform.toLocalY(circle.getX(), circle.getY());
+        return x < minX || x > maxX || y < minY || y > maxY;
+    }
+
+    /**
+     * Return candidate pairs for circle collisions
+     *
+     * @return circle broadphase, current for the circles in the world
+     */
+    public CircleBroadphase getCircleBroadphase() {
+        if (broadphaseStale) {
+            circleBroadphase.update(circles, 0);
+            broadphaseStale = false;
+        }
+        return circleBroadphase;
+    }
+
+    /**
+     * Return accumulated maze rotation
+     *
+     * @return maze transform
+     */
+    public MazeTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Return gravity x component in the simulation frame
+     *
+     * @return gravity x
+     */
+    public double getGravityX() {
+        return gravityX;
+    }
+
+    /**
+     * Return gravity y component in the simulation frame
+     *
+     * @return gravity y
+     */
+    public double getGravityY() {
+        return gravityY;
+    }
+
+    /**
+     * Return duration of the rotation phase of the last step
+     *
+     * @return nanoseconds
+     */
+    public long getRotationNanos() {
+        return rotationNanos;
+    }
+
+    /**
+     * Return duration of the circle phase of the last step
+     *
+     * @return nanoseconds
+     */
+    public long getCollisionNanos() {
+        return collisionNanos;
+    }
+
+    /**
+     * Return amount of segments tested during the last step
+     *
+     * @return segment tests
+     */
+    public long getSegmentTests() {
+        return segmentTests;
+    }
+
+    /**
+     * Return amount of contacts during the last step
+     *
+     * @return segment and circle contacts
+     */
+    public long getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Hash of the maze angle and every circle's position and velocity, equal only for bit-identical states
+     *
+     * @return state checksum
+     */
+    public long checksum() {
+        long hash = Double.doubleToLongBits(transform.getAngle());
+
+        for (int i = 0; i < circles.size(); i++) {
+            Circle circle = circles.get(i);
+            hash = hash * 31 + Double.doubleToLongBits(circle.getX());
+            hash = hash * 31 + Double.doubleToLongBits(circle.getY());
+            hash = hash * 31 + Double.doubleToLongBits(circle.getVx());
+            hash = hash * 31 + Double.doubleToLongBits(circle.getVy());
+        }
+        return hash;
+    }
+
+    /**
+     * Mark the game as won
+     */
+    public void setWin() {
+        this.win = true;
+    }
+
+    /**
+     * Return winning condition
+     *
+     * @return game won
+     */
+    public boolean isWin() {
+        return win;
+    }
+
+    /**
+     * Return simulated time
+     *
+     * @return seconds simulated until the game was won
+     */
+    public double getTime() {
+        return time;
+    }
+}
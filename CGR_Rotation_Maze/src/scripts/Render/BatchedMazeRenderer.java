@@ -0,0 +1,185 @@
+package scripts.Render;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineCap;
+import scripts.GameObject.SegmentStore;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class BatchedMazeRenderer {
+
+    /**
+     * Geometry the batches were built for
+     */
+    private SegmentStore batched;
+
+    /**
+     * Version of the geometry the batches were built for
+     */
+    private int batchedVersion;
+
+    /**
+     * Segment indices grouped by batch
+     */
+    private int[] order;
+
+    /**
+     * Offset of each batch into order, the last entry holds the total
+     */
+    private int[] batchStart;
+
+    /**
+     * Stroke color of each batch
+     */
+    private Color[] batchColor;
+
+    /**
+     * Stroke width of each batch
+     */
+    private double[] batchWidth;
+
+    /**
+     * Batch of every segment
+     */
+    private int[] batchOf;
+
+    /**
+     * Segment indices of a subset grouped by batch, reused between frames
+     */
+    private int[] subsetOrder = new int[0];
+
+    /**
+     * Batch offsets into subsetOrder, reused between frames
+     */
+    private int[] subsetStart = new int[0];
+
+    /**
+     * Draw all segments at their current position, one path per batch
+     *
+     * @param gc       Graphics context of the canvas
+     * @param segments maze geometry
+     * @return amount of canvas commands issued
+     */
+    public int draw(GraphicsContext gc, SegmentStore segments) {
+        if (batched != segments || batchedVersion != segments.getVersion())
+            buildBatches(segments);
+
+        return draw(gc, segments, order, batchStart);
+    }
+
+    /**
+     * Draw a subset of segments at their current position, one path per batch
+     *
+     * @param gc       Graphics context of the canvas
+     * @param segments maze geometry
+     * @param indices  segment indices
+     * @param count    amount of indices to draw
+     * @return amount of canvas commands issued
+     */
+    public int draw(GraphicsContext gc, SegmentStore segments, int[] indices, int count) {
+        if (batched != segments || batchedVersion != segments.getVersion())
+            buildBatches(segments);
+
+        if (subsetOrder.length < count)
+            subsetOrder = new int[Math.max(count, subsetOrder.length * 2)];
+
+        // Counting sort of the subset by batch keeps the per-frame work linear in the visible segments
+        Arrays.fill(subsetStart, 0);
+        for (int k = 0; k < count; k++)
+            subsetStart[batchOf[indices[k]] + 1]++;
+        for (int b = 1; b < subsetStart.length; b++)
+            subsetStart[b] += subsetStart[b - 1];
+        for (int k = 0; k < count; k++)
+            subsetOrder[subsetStart[batchOf[indices[k]]]++] = indices[k];
+
+        // Filling advanced every offset to the start of the next batch
+        System.arraycopy(subsetStart, 0, subsetStart, 1, subsetStart.length - 1);
+        subsetStart[0] = 0;
+
+        return draw(gc, segments, subsetOrder, subsetStart);
+    }
+
+    /**
+     * Stroke one path per non-empty batch
+     *
+     * @param gc       Graphics context of the canvas
+     * @param segments maze geometry
+     * @param order    segment indices grouped by batch
+     * @param starts   offset of each batch into order
+     * @return amount of canvas commands issued
+     */
+    private int draw(GraphicsContext gc, SegmentStore segments, int[] order, int[] starts) {
+        int commands = 2;
+        gc.save();
+        gc.setLineCap(StrokeLineCap.ROUND);
+
+        for (int b = 0; b + 1 < batchStart.length; b++) {
+            if (starts[b] == starts[b + 1])
+                continue;
+
+            gc.setStroke(batchColor[b]);
+            gc.setLineWidth(batchWidth[b]);
+            gc.beginPath();
+
+            for (int k = starts[b]; k < starts[b + 1]; k++) {
+                int i = order[k];
+                gc.moveTo(segments.sx[i], segments.sy[i]);
+                gc.lineTo(segments.ex[i], segments.ey[i]);
+            }
+
+            gc.stroke();
+            commands += 4 + 2 * (starts[b + 1] - starts[b]);
+        }
+
+        gc.restore();
+        return commands;
+    }
+
+    /**
+     * Group segments by color and radius
+     *
+     * @param segments maze geometry
+     */
+    private void buildBatches(SegmentStore segments) {
+        Integer[] sorted = new Integer[segments.size()];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = i;
+
+        Arrays.sort(sorted, Comparator
+                .comparingInt((Integer i) -> SegmentStore.argb(segments.getColor(i)))
+                .thenComparingDouble(i -> segments.radius[i]));
+
+        order = new int[sorted.length];
+        batchOf = new int[sorted.length];
+        int[] starts = new int[sorted.length + 1];
+        Color[] colors = new Color[sorted.length];
+        double[] widths = new double[sorted.length];
+        int batches = 0;
+
+        for (int k = 0; k < sorted.length; k++) {
+            int i = sorted[k];
+            order[k] = i;
+
+            // Outline strokes sit at +-radius and are 1px wide, so the path covers radius * 2 + 1
+            Color color = segments.getColor(i);
+            double width = segments.radius[i] * 2 + 1;
+            if (batches == 0 || !colors[batches - 1].equals(color) || widths[batches - 1] != width) {
+                starts[batches] = k;
+                colors[batches] = color;
+                widths[batches] = width;
+                batches++;
+            }
+            batchOf[i] = batches - 1;
+        }
+        starts[batches] = sorted.length;
+
+        batchStart = Arrays.copyOf(starts, batches + 1);
+        batchColor = Arrays.copyOf(colors, batches);
+        batchWidth = Arrays.copyOf(widths, batches);
+        subsetStart = new int[batches + 1];
+        batched = segments;
+        batchedVersion = segments.getVersion();
+    }
+}
@@ -0,0 +1,75 @@
+package scripts.Render;
+
+import javafx.scene.canvas.GraphicsContext;
+import scripts.GameObject.Circle;
+import scripts.Other.Config;
+import scripts.Physics.MazeTransform;
+import scripts.Physics.World;
+
+public class Camera {
+
+    /**
+     * Center of the canvas
+     */
+    private static final double midPointX = (double) Config.CANVAS_WIDTH / 2;
+
+    /**
+     * Center of the canvas
+     */
+    private static final double midPointY = (double) Config.CANVAS_HEIGHT / 2;
+
+    /**
+     * Drawing position shown at the center of the canvas
+     */
+    private double x = midPointX, y = midPointY;
+
+    /**
+     * Look at the player in a maze larger than the canvas, otherwise at the rotation center
+     *
+     * @param world world to look at
+     * @param alpha interpolation factor between the previous and the current physics step
+     */
+    public void update(World world, double alpha) {
+        Circle player = world.followsPlayer() ? world.getPlayer() : null;
+
+        if (player != null) {
+            x = player.getInterpolatedX(alpha);
+            y = player.getInterpolatedY(alpha);
+        } else {
+            MazeTransform transform = world.getTransform();
+            x = transform.getPivotX();
+            y = transform.getPivotY();
+        }
+    }
+
+    /**
+     * Map drawing coordinates to the canvas, turning the view with a fixed maze
+     *
+     * @param gc    Graphics context of the canvas
+     * @param angle world rotation the maze is shown at
+     */
+    public void apply(GraphicsContext gc, double angle) {
+        gc.translate(midPointX, midPointY);
+        if (Config.rotateGravity)
+            gc.rotate(Math.toDegrees(angle));
+        gc.translate(-x, -y);
+    }
+
+    /**
+     * Return drawing x shown at the center of the canvas
+     *
+     * @return x position
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Return drawing y shown at the center of the canvas
+     *
+     * @return y position
+     */
+    public double getY() {
+        return y;
+    }
+}
@@ -0,0 +1,121 @@
+package scripts.Render;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import scripts.GameObject.SegmentStore;
+
+public class MazeLayer {
+
+    /**
+     * Largest texture edge the layer is rasterized to
+     */
+    private static final int maxTextureSize = 8192;
+
+    /**
+     * Margin around the maze so line strokes are not clipped
+     */
+    private static final double margin = 2;
+
+    /**
+     * Rasterized maze in maze-local space
+     */
+    private WritableImage image;
+
+    /**
+     * Geometry the image was rasterized from
+     */
+    private SegmentStore rasterized;
+
+    /**
+     * Version of the geometry the image was rasterized from
+     */
+    private int rasterizedVersion;
+
+    /**
+     * Zoom the image was rasterized at
+     */
+    private double rasterizedZoom;
+
+    /**
+     * Maze-local origin of the image
+     */
+    private double minX, minY;
+
+    /**
+     * Maze-local size of the image
+     */
+    private double width, height;
+
+    /**
+     * Draw the maze with a single transformed blit, rasterizing it first if geometry or zoom changed
+     *
+     * @param gc       Graphics context of the canvas
+     * @param segments maze geometry
+     * @param angle    rotation of the maze frame in drawing coordinates
+     * @param pivotX   rotation center x
+     * @param pivotY   rotation center y
+     * @param zoom     screen pixels per maze-local unit
+     * @return amount of canvas commands issued
+     */
+    public int draw(GraphicsContext gc, SegmentStore segments, double angle, double pivotX, double pivotY, double zoom) {
+        if (image == null || rasterized != segments || rasterizedVersion != segments.getVersion() || rasterizedZoom != zoom)
+            rasterize(segments, zoom);
+
+        gc.save();
+        gc.translate(pivotX, pivotY);
+        gc.rotate(Math.toDegrees(angle));
+        gc.translate(-pivotX, -pivotY);
+        gc.drawImage(image, minX, minY, width, height);
+        gc.restore();
+        return 6;
+    }
+
+    /**
+     * Draw the unrotated maze into an offscreen canvas and snapshot it
+     *
+     * @param segments maze geometry
+     * @param zoom     screen pixels per maze-local unit
+     */
+    private void rasterize(SegmentStore segments, double zoom) {
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+        double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < segments.size(); i++) {
+            double r = segments.radius[i];
+            loX = Math.min(loX, Math.min(segments.bsx[i], segments.bex[i]) - r);
+            loY = Math.min(loY, Math.min(segments.bsy[i], segments.bey[i]) - r);
+            hiX = Math.max(hiX, Math.max(segments.bsx[i], segments.bex[i]) + r);
+            hiY = Math.max(hiY, Math.max(segments.bsy[i], segments.bey[i]) + r);
+        }
+
+        if (segments.size() == 0) {
+            loX = loY = 0;
+            hiX = hiY = 1;
+        }
+
+        minX = loX - margin;
+        minY = loY - margin;
+        width = hiX - loX + 2 * margin;
+        height = hiY - loY + 2 * margin;
+
+        // Very large mazes are rasterized coarser than requested instead of exceeding the texture limit
+        double scale = Math.min(zoom, maxTextureSize / Math.max(width, height));
+
+        Canvas canvas = new Canvas(Math.ceil(width * scale), Math.ceil(height * scale));
+        GraphicsContext layer = canvas.getGraphicsContext2D();
+        layer.scale(scale, scale);
+        layer.translate(-minX, -minY);
+        segments.drawLocal(layer);
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        image = canvas.snapshot(parameters, null);
+
+        rasterized = segments;
+        rasterizedVersion = segments.getVersion();
+        rasterizedZoom = zoom;
+    }
+}
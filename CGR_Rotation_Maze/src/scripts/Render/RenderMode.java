@@ -0,0 +1,28 @@
+package scripts.Render;
+
+public enum RenderMode {
+
+    /**
+     * Outline and end caps of every segment, issued as separate canvas commands
+     */
+    SEGMENTS,
+
+    /**
+     * Pre-rendered maze image drawn with a single transformed blit
+     */
+    LAYER,
+
+    /**
+     * One stroked path per color and width, with round line caps
+     */
+    BATCHED;
+
+    /**
+     * Return the mode after this one, for cycling through modes at runtime
+     *
+     * @return next mode
+     */
+    public RenderMode next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
@@ -0,0 +1,114 @@
+package scripts.Render;
+
+import scripts.Other.Config;
+import scripts.Physics.MazeTransform;
+import scripts.Physics.SegmentGrid;
+
+public class Viewport {
+
+    /**
+     * Rotation center of the canvas
+     */
+    private static final double midPointX = (double) Config.CANVAS_WIDTH / 2;
+
+    /**
+     * Rotation center of the canvas
+     */
+    private static final double midPointY = (double) Config.CANVAS_HEIGHT / 2;
+
+    /**
+     * Drawing position shown at the center of the canvas
+     */
+    private double cameraX = midPointX, cameraY = midPointY;
+
+    /**
+     * Extra room around the canvas for stroke widths
+     */
+    private static final double margin = 2;
+
+    /**
+     * Indices of the segments that may be visible, ascending
+     */
+    private int[] visible = new int[256];
+
+    /**
+     * Amount of visible segments
+     */
+    private int visibleCount;
+
+    /**
+     * Rotation from drawing coordinates to the screen
+     */
+    private double drawSin = 0, drawCos = 1;
+
+    /**
+     * Collect the segments whose maze-local bounds touch the rotated canvas
+     *
+     * @param grid      spatial index over the maze-local segment positions
+     * @param transform maze transform the segments are currently rotated by
+     * @param angle     world rotation the maze is shown at
+     * @param camera    camera the canvas is centered on
+     */
+    public void update(SegmentGrid grid, MazeTransform transform, double angle, Camera camera) {
+        double sin = Math.sin(angle);
+        double cos = Math.cos(angle);
+
+        cameraX = camera.getX();
+        cameraY = camera.getY();
+
+        // The canvas box turned back into the maze frame, widened by the thickest segment
+        double halfX = (double) Config.CANVAS_WIDTH / 2;
+        double halfY = (double) Config.CANVAS_HEIGHT / 2;
+        double reach = grid.getMaxRadius() + margin;
+        double rx = halfX * Math.abs(cos) + halfY * Math.abs(sin) + reach;
+        double ry = halfX * Math.abs(sin) + halfY * Math.abs(cos) + reach;
+        double cx = transform.toLocalX(cameraX, cameraY);
+        double cy = transform.toLocalY(cameraX, cameraY);
+
+        int n = grid.query(cx - rx, cy - ry, cx + rx, cy + ry, visible);
+        if (n < 0) {
+            visible = new int[-n * 2];
+            n = grid.query(cx - rx, cy - ry, cx + rx, cy + ry, visible);
+        }
+        visibleCount = n;
+
+        // A rotated maze is drawn in world coordinates, otherwise the canvas itself is turned
+        drawSin = Config.rotateGravity ? sin : 0;
+        drawCos = Config.rotateGravity ? cos : 1;
+    }
+
+    /**
+     * Return whether a circle in drawing coordinates overlaps the canvas
+     *
+     * @param x      center x position
+     * @param y      center y position
+     * @param radius circle radius
+     * @return circle visible
+     */
+    public boolean isVisible(double x, double y, double radius) {
+        double screenX = midPointX + (x - cameraX) * drawCos - (y - cameraY) * drawSin;
+        double screenY = midPointY + (x - cameraX) * drawSin + (y - cameraY) * drawCos;
+        double reach = radius + margin;
+
+        return screenX + reach >= 0 && screenX - reach <= Config.CANVAS_WIDTH
+                && screenY + reach >= 0 && screenY - reach <= Config.CANVAS_HEIGHT;
+    }
+
+    /**
+     * Return indices of the segments that may be visible
+     *
+     * @return index buffer, valid up to getVisibleCount()
+     */
+    public int[] getVisible() {
+        return visible;
+    }
+
+    /**
+     * Return amount of segments that may be visible
+     *
+     * @return visible segment count
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+}
@@ -0,0 +1,156 @@
+package scripts.Map;
+
+import org.junit.jupiter.api.Test;
+import scripts.GameObject.LineSegment;
+import scripts.Other.Config;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazeExtractorTest {
+
+    /**
+     * Opaque black wall pixel
+     */
+    private static final int WALL = -16777216;
+
+    /**
+     * Anti-aliased edge pixel, neither wall nor background
+     */
+    private static final int GRAY = 0xFF808080;
+
+    /**
+     * The bundled maze gives the same segments as the original per-pixel scan
+     */
+    @Test
+    void bundledMazeMatchesTheOriginalScan() throws IOException {
+        BufferedImage bf;
+        try (InputStream in = MazeExtractorTest.class.getResourceAsStream("/images/maze.png")) {
+            bf = ImageIO.read(in);
+        }
+
+        List<LineSegment> extracted = MazeExtractor.extract(bf);
+        assertEquals(275, extracted.size());
+        assertSameSegments(reference(bf), extracted);
+    }
+
+    /**
+     * Random anti-aliased images give the same segments as the original scan, on the sequential and the parallel path
+     */
+    @Test
+    void antiAliasedImagesMatchTheOriginalScan() {
+        Random random = new Random(3);
+        int[] sizes = {61, (int) Math.sqrt(Config.PARALLEL_EXTRACTION_PIXELS) + 3};
+
+        for (int size : sizes) {
+            BufferedImage bf = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int pick = random.nextInt(10);
+                    bf.setRGB(x, y, pick < 4 ? WALL : pick < 7 ? GRAY : 0);
+                }
+            }
+
+            assertSameSegments(reference(bf), MazeExtractor.extract(bf));
+        }
+    }
+
+    /**
+     * A wall run left open at the end of a row is closed by the first wall pixel of the next row
+     */
+    @Test
+    void openRunCarriesIntoTheNextRow() {
+        BufferedImage bf = new BufferedImage(4, 2, BufferedImage.TYPE_INT_ARGB);
+        bf.setRGB(0, 0, GRAY);
+        bf.setRGB(1, 0, GRAY);
+        bf.setRGB(2, 0, WALL);
+        bf.setRGB(3, 0, GRAY);
+        bf.setRGB(0, 1, WALL);
+
+        List<LineSegment> extracted = MazeExtractor.extract(bf);
+        assertSameSegments(reference(bf), extracted);
+
+        // The run opened at x = 2 in the first row and ends at x = 0 in the second
+        LineSegment carried = extracted.get(0);
+        assertEquals(carried.sy, carried.ey);
+        assertTrue(carried.sx > carried.ex);
+    }
+
+    /**
+     * Require equal geometry in equal order
+     *
+     * @param expected segments of the original scan
+     * @param actual   extracted segments
+     */
+    private static void assertSameSegments(List<LineSegment> expected, List<LineSegment> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            LineSegment e = expected.get(i);
+            LineSegment a = actual.get(i);
+            assertEquals(e.sx, a.sx, "segment " + i);
+            assertEquals(e.sy, a.sy, "segment " + i);
+            assertEquals(e.ex, a.ex, "segment " + i);
+            assertEquals(e.ey, a.ey, "segment " + i);
+        }
+    }
+
+    /**
+     * The original scan, one getRGB per pixel and one state carried through all rows, then through all columns
+     *
+     * @param bf maze image
+     * @return line segments in the order rows first, then columns
+     */
+    private static List<LineSegment> reference(BufferedImage bf) {
+        List<LineSegment> lineSegments = new ArrayList<>();
+        int val1 = -1;
+        int val2 = -1;
+        for (int row = 0; row < bf.getHeight(); row++) {
+            for (int col = 0; col < bf.getWidth(); col++) {
+                if (bf.getRGB(col, row) == WALL && val1 != -1)
+                    val2 = col;
+                if (bf.getRGB(col, row) == WALL && val1 == -1 && col != bf.getWidth() - 1 && bf.getRGB(col + 1, row) != 0)
+                    val1 = col;
+                if (bf.getRGB(col, row) == 0 && val2 != -1) {
+                    lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
+                    val1 = -1;
+                    val2 = -1;
+                }
+            }
+            if (val1 != val2 && val1 * val2 >= 0) {
+                lineSegments.add(new LineSegment(val1, row, val2, row, 0.1, true, Config.MAZE_COLOR));
+                val1 = -1;
+                val2 = -1;
+            }
+        }
+
+        val1 = -1;
+        val2 = -1;
+        for (int col = 0; col < bf.getWidth(); col++) {
+            for (int row = 0; row < bf.getHeight(); row++) {
+                if (bf.getRGB(col, row) == WALL && val1 != -1)
+                    val2 = row;
+                if (bf.getRGB(col, row) == WALL && val1 == -1 && row != bf.getHeight() - 1 && bf.getRGB(col, row + 1) != 0)
+                    val1 = row;
+                if (bf.getRGB(col, row) == 0 && val2 != -1) {
+                    lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
+                    val1 = -1;
+                    val2 = -1;
+                }
+            }
+            if (val1 != val2 && val1 * val2 >= 0) {
+                lineSegments.add(new LineSegment(col, val1, col, val2, 0.1, true, Config.MAZE_COLOR));
+                val1 = -1;
+                val2 = -1;
+            }
+        }
+        return lineSegments;
+    }
+}
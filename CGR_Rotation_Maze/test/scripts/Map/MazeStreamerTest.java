@@ -0,0 +1,104 @@
+package scripts.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import scripts.Controller.InputSnapshot;
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+import scripts.Physics.World;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazeStreamerTest {
+
+    /**
+     * Small cells, so the balls cross many tiles
+     */
+    private static final String resource = "generated:300x300:5:10";
+
+    /**
+     * Steps of seeded input per run
+     */
+    private static final int steps = 3000;
+
+    /**
+     * Put the shared settings back for the other tests
+     */
+    @AfterEach
+    void restoreConfig() {
+        Config.streamMaze = false;
+        Config.bruteForceCollisions = false;
+    }
+
+    /**
+     * Swapping tiles in place keeps the grid exact, every segment near the player is found in scan order
+     */
+    @Test
+    void gridFindsEveryResidentSegment() {
+        Config.streamMaze = true;
+
+        World world = new MazeLoader(resource).load();
+        Random random = new Random(1);
+        int buttons = 0;
+        int[] out = new int[4096];
+
+        for (int step = 0; step < steps; step++) {
+            if (step % 60 == 0)
+                buttons = random.nextInt(4);
+            world.step(new InputSnapshot(buttons, step), Config.FIXED_TIMESTEP);
+
+            double x = world.getTransform().toLocalX(world.getPlayer().getX(), world.getPlayer().getY());
+            double y = world.getTransform().toLocalY(world.getPlayer().getX(), world.getPlayer().getY());
+            int n = world.getSegmentGrid().query(x - 30, y - 30, x + 30, y + 30, out);
+
+            SegmentStore segments = world.getSegments();
+            int k = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                double r = segments.radius[i];
+                if (Math.max(segments.bsx[i], segments.bex[i]) + r < x - 30 || Math.min(segments.bsx[i], segments.bex[i]) - r > x + 30
+                        || Math.max(segments.bsy[i], segments.bey[i]) + r < y - 30 || Math.min(segments.bsy[i], segments.bey[i]) - r > y + 30)
+                    continue;
+
+                // Candidates are a sorted superset of the overlapping segments
+                while (k < n && out[k] < i)
+                    k++;
+                assertTrue(k < n && out[k] == i, "step " + step + " segment " + i);
+            }
+        }
+
+        assertTrue(world.getStreamer().getSwaps() > 1);
+    }
+
+    /**
+     * Streamed geometry gives exactly the brute force result
+     */
+    @Test
+    void gridMatchesBruteForce() {
+        assertEquals(checksum(true), checksum(false));
+    }
+
+    /**
+     * Play the streamed maze with seeded input, each choice held for three quarters of a second
+     *
+     * @param bruteForce test every segment and circle instead of querying the grid and the broadphase
+     * @return final world checksum
+     */
+    private static long checksum(boolean bruteForce) {
+        Config.streamMaze = true;
+        Config.bruteForceCollisions = bruteForce;
+
+        World world = new MazeLoader(resource).load();
+        Random random = new Random(2);
+        int buttons = 0;
+
+        for (int step = 0; step < steps; step++) {
+            if (step % 45 == 0)
+                buttons = random.nextInt(4);
+            world.step(new InputSnapshot(buttons, step), Config.FIXED_TIMESTEP);
+        }
+        return world.checksum();
+    }
+}
@@ -0,0 +1,77 @@
+package scripts.Physics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import scripts.Controller.InputSnapshot;
+import scripts.Map.MazeLoader;
+import scripts.Other.Config;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CollisionModesTest {
+
+    /**
+     * Steps of seeded input per run
+     */
+    private static final int steps = 3000;
+
+    /**
+     * Input seeds played in each mode
+     */
+    private static final int seeds = 5;
+
+    /**
+     * Put the shared settings back for the other tests
+     */
+    @AfterEach
+    void restoreConfig() {
+        Config.bruteForceCollisions = false;
+        Config.continuousCollisions = true;
+        Config.useMazeCache = true;
+    }
+
+    /**
+     * Grid and sweep-and-prune give exactly the brute force result with discrete collisions
+     */
+    @Test
+    void discreteGridMatchesBruteForce() {
+        Config.continuousCollisions = false;
+        for (long seed = 1; seed <= seeds; seed++)
+            assertEquals(checksum(true, seed), checksum(false, seed), "seed " + seed);
+    }
+
+    /**
+     * Grid and sweep-and-prune give exactly the brute force result with continuous collisions
+     */
+    @Test
+    void continuousGridMatchesBruteForce() {
+        Config.continuousCollisions = true;
+        for (long seed = 1; seed <= seeds; seed++)
+            assertEquals(checksum(true, seed), checksum(false, seed), "seed " + seed);
+    }
+
+    /**
+     * Play the bundled maze with seeded input, each choice held for half a second
+     *
+     * @param bruteForce test every segment and circle instead of querying the grid and the broadphase
+     * @param seed       seed of the input
+     * @return final world checksum
+     */
+    private static long checksum(boolean bruteForce, long seed) {
+        Config.useMazeCache = false;
+        Config.bruteForceCollisions = bruteForce;
+
+        World world = new MazeLoader(Config.mazeResource).load();
+        Random random = new Random(seed);
+        int buttons = 0;
+
+        for (int step = 0; step < steps; step++) {
+            if (step % 30 == 0)
+                buttons = random.nextInt(8);
+            world.step(new InputSnapshot(buttons, step), Config.FIXED_TIMESTEP);
+        }
+        return world.checksum();
+    }
+}
@@ -0,0 +1,142 @@
+package scripts.Physics;
+
+import javafx.scene.paint.Color;
+import jdk.incubator.vector.DoubleVector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import scripts.GameObject.SegmentStore;
+import scripts.Other.Config;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NarrowphaseTest {
+
+    /**
+     * Double lanes of the vector path
+     */
+    private static final int lanes = DoubleVector.SPECIES_PREFERRED.length();
+
+    /**
+     * Make sure the vector path is really the one compared, not the scalar fallback
+     */
+    @BeforeAll
+    static void requireVectorModule() {
+        Config.vectorNarrowphase = true;
+        assertTrue(Narrowphase.isVectorized(), "Vector API unavailable, run with --add-modules jdk.incubator.vector");
+    }
+
+    /**
+     * Random segments, points and candidate lists of every length up to two full blocks and a tail
+     */
+    @Test
+    void randomInputsKeepTheSameCandidates() {
+        Random random = new Random(1);
+        SegmentStore segments = randomStore(random, 256);
+
+        for (int round = 0; round < 2000; round++) {
+            int count = random.nextInt(2 * lanes + 2);
+            int[] candidates = new int[count];
+            for (int k = 0; k < count; k++)
+                candidates[k] = random.nextInt(segments.size());
+
+            double px = random.nextDouble() * 200;
+            double py = random.nextDouble() * 200;
+            double reach = random.nextDouble() * 40;
+
+            assertSameKept(segments, candidates, px, py, reach);
+        }
+    }
+
+    /**
+     * Every count from empty over exact blocks to a tail of lanes - 1, all kept and all rejected
+     */
+    @Test
+    void laneTailCountsKeepOrder() {
+        SegmentStore segments = randomStore(new Random(2), 4 * lanes + 4);
+
+        for (int count = 0; count <= 2 * lanes + 1; count++) {
+            int[] candidates = new int[count];
+            for (int k = 0; k < count; k++)
+                candidates[k] = segments.size() - 1 - 2 * k;
+
+            int[] all = assertSameKept(segments, candidates, 100, 100, 1000);
+            assertArrayEquals(candidates, all);
+
+            int[] none = assertSameKept(segments, candidates, 1e6, 1e6, 1);
+            assertEquals(0, none.length);
+        }
+    }
+
+    /**
+     * Degenerate segments are tested as circles around their start, including points exactly at the limit
+     */
+    @Test
+    void zeroLengthSegmentsAreCircles() {
+        int n = 2 * lanes + 1;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 10 * i;
+            radius[i] = 2;
+        }
+        SegmentStore segments = new SegmentStore(x, y, x.clone(), y.clone(), radius, new Color[n]);
+
+        int[] candidates = new int[n];
+        for (int k = 0; k < n; k++)
+            candidates[k] = k;
+
+        // 3-4-5 triangle from segment 1, radius 2 and reach 3 make exactly the distance
+        assertArrayEquals(new int[]{1}, assertSameKept(segments, candidates, 13, 4, 3));
+        assertArrayEquals(new int[0], assertSameKept(segments, candidates, 13, 4.001, 3));
+        assertArrayEquals(new int[]{n - 1}, assertSameKept(segments, candidates, x[n - 1], 0, 0));
+    }
+
+    /**
+     * Filter copies of the candidates on both paths and require the same kept segments in the same order
+     *
+     * @param segments   segment store
+     * @param candidates segment indices
+     * @param px         point x position
+     * @param py         point y position
+     * @param reach      distance from the point added to each segment radius
+     * @return kept candidates
+     */
+    private static int[] assertSameKept(SegmentStore segments, int[] candidates, double px, double py, double reach) {
+        int[] scalar = candidates.clone();
+        int scalarKept = Narrowphase.filterScalar(segments, scalar, 0, scalar.length, 0, px, py, reach);
+
+        int[] vector = candidates.clone();
+        int vectorKept = VectorNarrowphase.filter(segments, vector, vector.length, px, py, reach);
+
+        int[] kept = Arrays.copyOf(scalar, scalarKept);
+        assertArrayEquals(kept, Arrays.copyOf(vector, vectorKept),
+                () -> "count " + candidates.length + " at " + px + "," + py + " reach " + reach);
+        return kept;
+    }
+
+    /**
+     * Random short walls in a 200 x 200 box, every eighth one degenerate
+     *
+     * @param random random source
+     * @param n      amount of segments
+     * @return segment store
+     */
+    private static SegmentStore randomStore(Random random, int n) {
+        double[] sx = new double[n], sy = new double[n], ex = new double[n], ey = new double[n], radius = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            sx[i] = random.nextDouble() * 200;
+            sy[i] = random.nextDouble() * 200;
+            ex[i] = i % 8 == 0 ? sx[i] : sx[i] + random.nextGaussian() * 20;
+            ey[i] = i % 8 == 0 ? sy[i] : sy[i] + random.nextGaussian() * 20;
+            radius[i] = random.nextDouble() * 5;
+        }
+        return new SegmentStore(sx, sy, ex, ey, radius, new Color[n]);
+    }
+}